@@ -69,6 +69,37 @@ public class AlgorithmOptions {
 	/* Numero de iteraciones maximas */
     public int max_iterations = 20;
     
+    /* Almacenamiento de las distancias */
+    TSPlibReader.Distance_storage distance_storage = TSPlibReader.Distance_storage.AUTO;
+    
+    /* Largo de las listas de vecinos mas cercanos */
+    int nn_size = 16;
+    
+    /* Directorio del cache binario de instancias (.tspbin), null: sin cache */
+    String cache_dir = null;
+    
+    /* Renumerar los nodos en el orden de una curva de Hilbert */
+    boolean renumber = false;
+    
+    /* Imprimir el tiempo de preprocesamiento de la instancia */
+    boolean print_times = false;
+    
+    /* Rechazar hijos duplicados */
+    boolean reject_duplicates = false;
+    
+    /* Tamaño del cache de costos por huella de tour (0: sin cache) */
+    int fitness_cache_size = 0;
+    
+    /* Revision de los tours creados */
+    TSP.ValidationLevel validation = TSP.ValidationLevel.SAMPLED;
+    int validation_period = 100;
+    
+    /* Archivo donde guardar cada mejor tour encontrado (null: ninguno) */
+    String trace_file = null;
+    
+    /* Aplicar busqueda local 2-opt a los hijos */
+    boolean local_search = false;
+    
     
     static class OptComparator implements Comparator<Option> {
         Map<String, Integer> opt = new HashMap<String, Integer>();
@@ -96,6 +127,24 @@ public class AlgorithmOptions {
         readOptions(args);
         /* Setear semillas en el generador de numeros aleatorio */
         Utilities.seed = seed;
+        /* Setear el almacenamiento de distancias del lector de instancias */
+        TSPlibReader.storage = distance_storage;
+        TSPlibReader.nn_size = nn_size;
+        TSPlibReader.cache_dir = cache_dir;
+        TSPlibReader.renumber = renumber;
+        TSPlibReader.print_times = print_times;
+        /* Huellas de tours para rechazar duplicados */
+        Population.reject_duplicates = reject_duplicates;
+        TourHash.enabled = reject_duplicates || fitness_cache_size > 0;
+        if (fitness_cache_size > 0)
+            Tour.fitness_cache = new FitnessCache(fitness_cache_size);
+        /* Revision de tours */
+        TSP.validation = validation;
+        TSP.validation_period = validation_period;
+        /* Traza de mejores tours */
+        GeneticAlgorithm.trace_file = trace_file;
+        /* Busqueda local */
+        Population.local_search = local_search;
     };
     
     private void readOptions (String args[]) {
@@ -110,13 +159,24 @@ public class AlgorithmOptions {
         options.addOption("p", "psize", true, "tamaño de la poblacion ]0,INT_MAX]");
         options.addOption("o", "osize", true, "cantidad de hijos a generar ]0,INT_MAX]");
         options.addOption("ps", "pselection", true, "Operador de seleccion de padres [ random | best | roulette | tournament ]");
-        options.addOption("c", "crossover", true, "Operador de crossover [ox, opx, pmx]");
-        options.addOption("m", "mutation", true, "Operador de mutacion [swap | two_opt]");
+        options.addOption("c", "crossover", true, "Operador de crossover [ox, opx, pmx, erx, eax, gpx]");
+        options.addOption("m", "mutation", true, "Operador de mutacion [swap | two_opt | or_opt | or2opt]");
         options.addOption("mp", "mprobability", true, "Probabilidad de muracion [0.0,1.0]");
         options.addOption("gs", "gselection", true, "Operador de seleccion de poblacion [ random | best | roulette | tournament ]");
         options.addOption("g", "gstrategy", true, "Estrategia de seleccion de padres [ mu,lambda | mu+lambda]");
         options.addOption("e", "evaluations", true, "maximo numero de soluciones a evaluar");
         options.addOption("t", "iterations", true, "maximo numero de iteraciones a realizar");
+        options.addOption("dm", "distances", true, "Almacenamiento de distancias [auto | matrix | half | implicit]");
+        options.addOption("nn", "nnsize", true, "largo de las listas de vecinos mas cercanos ]0,INT_MAX]");
+        options.addOption("cd", "cachedir", true, "directorio donde guardar el cache binario de instancias (.tspbin), sin esta opcion no se usa cache");
+        options.addOption("rn", "renumber", false, "renumerar los nodos segun una curva de Hilbert (mejora la localidad en memoria)");
+        options.addOption("pt", "ptimes", false, "imprimir el tiempo de preprocesamiento de la instancia");
+        options.addOption("rd", "rejectdup", false, "rechazar hijos con las mismas aristas que otro individuo");
+        options.addOption("fc", "fcache", true, "cantidad de costos de tours guardados en cache [0,INT_MAX] (0: sin cache)");
+        options.addOption("vl", "validation", true, "Revision de los tours creados [ full | sampled | none ]");
+        options.addOption("vp", "vperiod", true, "con -vl sampled, revisar 1 de cada vperiod tours ]0,INT_MAX]");
+        options.addOption("tr", "trace", true, "archivo donde guardar cada mejor tour encontrado (ver TourCodec)");
+        options.addOption("ls", "localsearch", false, "aplicar busqueda local 2-opt a los hijos despues de la mutacion");
         options.addOption("seed", true, "numero para ser usado como semilla para el generador de numeros aleatorios");
         
         
@@ -202,6 +262,12 @@ public class AlgorithmOptions {
             	crossover_type = Population.CrossoverType.OX;
             } else if (value.equals("opx")) {
             	crossover_type = Population.CrossoverType.OPX;
+            } else if (value.equals("erx")) {
+            	crossover_type = Population.CrossoverType.ERX;
+            } else if (value.equals("eax")) {
+            	crossover_type = Population.CrossoverType.EAX;
+            } else if (value.equals("gpx")) {
+            	crossover_type = Population.CrossoverType.GPX;
             } else {
                 System.err.println("Error: opcion no reconocida -c "+ value);
                 System.exit(1);
@@ -219,6 +285,10 @@ public class AlgorithmOptions {
                 mutation_type = Population.MutationType.SWAP;
             } else if (value.equals("two_opt")) {
             	mutation_type = Population.MutationType.TWO_OPT;
+            } else if (value.equals("or_opt")) {
+            	mutation_type = Population.MutationType.OR_OPT;
+            } else if (value.equals("or2opt")) {
+            	mutation_type = Population.MutationType.OR2OPT;
             } else {
                 System.err.println("Error: opcion no reconocida -m "+ value);
                 System.exit(1);
@@ -290,6 +360,99 @@ public class AlgorithmOptions {
             System.out.println("-e/evaluations " + max_evaluations+ " (default)");
         }
         
+        /* Almacenamiento de distancias */
+        if (cmd.hasOption("dm")){
+            String value;
+            value = cmd.getOptionValue("dm");
+            if (value.equals("auto")) {
+                distance_storage = TSPlibReader.Distance_storage.AUTO;
+            } else if (value.equals("matrix")) {
+                distance_storage = TSPlibReader.Distance_storage.MATRIX;
+            } else if (value.equals("half")) {
+                distance_storage = TSPlibReader.Distance_storage.TRIANGULAR;
+            } else if (value.equals("implicit")) {
+                distance_storage = TSPlibReader.Distance_storage.IMPLICIT;
+            } else {
+                System.err.println("Error: opcion no reconocida -dm "+ value);
+                System.exit(1);
+            }
+            System.out.println("-dm/distances " + distance_storage);
+        } else {
+            System.out.println("-dm/distances " + distance_storage + " (default)");
+        }
+        
+        /* Largo de las listas de vecinos */
+        if (cmd.hasOption("nn")) {
+            nn_size = Integer.parseInt(cmd.getOptionValue("nn"));
+            System.out.println("-nn/nnsize " + nn_size);
+        } else {
+            System.out.println("-nn/nnsize " + nn_size + " (default)");
+        }
+        
+        /* Cache de instancias */
+        if (cmd.hasOption("cd")) {
+            cache_dir = cmd.getOptionValue("cd");
+            System.out.println("-cd/cachedir " + cache_dir);
+        }
+        
+        /* Renumeracion de nodos */
+        if (cmd.hasOption("rn")) {
+            renumber = true;
+            System.out.println("-rn/renumber");
+        }
+        
+        /* Tiempo de preprocesamiento */
+        if (cmd.hasOption("pt")) {
+            print_times = true;
+            System.out.println("-pt/ptimes");
+        }
+        
+        /* Rechazo de hijos duplicados */
+        if (cmd.hasOption("rd")) {
+            reject_duplicates = true;
+            System.out.println("-rd/rejectdup");
+        }
+        
+        /* Cache de costos */
+        if (cmd.hasOption("fc")) {
+            fitness_cache_size = Integer.parseInt(cmd.getOptionValue("fc"));
+            System.out.println("-fc/fcache " + fitness_cache_size);
+        }
+        
+        /* Revision de tours */
+        if (cmd.hasOption("vl")) {
+            String value = cmd.getOptionValue("vl");
+            if (value.equals("full")) {
+                validation = TSP.ValidationLevel.FULL;
+            } else if (value.equals("sampled")) {
+                validation = TSP.ValidationLevel.SAMPLED;
+            } else if (value.equals("none")) {
+                validation = TSP.ValidationLevel.NONE;
+            } else {
+                System.err.println("Error: opcion no reconocida -vl "+ value);
+                System.exit(1);
+            }
+            System.out.println("-vl/validation " + validation);
+        } else {
+            System.out.println("-vl/validation " + validation + " (default)");
+        }
+        if (cmd.hasOption("vp")) {
+            validation_period = Integer.parseInt(cmd.getOptionValue("vp"));
+            System.out.println("-vp/vperiod " + validation_period);
+        }
+        
+        /* Traza de mejores tours */
+        if (cmd.hasOption("tr")) {
+            trace_file = cmd.getOptionValue("tr");
+            System.out.println("-tr/trace " + trace_file);
+        }
+        
+        /* Busqueda local */
+        if (cmd.hasOption("ls")) {
+            local_search = true;
+            System.out.println("-ls/localsearch");
+        }
+        
         validateOptions();
     }
     
@@ -311,6 +474,24 @@ public class AlgorithmOptions {
           	  System.exit(1);
     	}
     	
+    	if (validation_period <= 0) {
+    		System.err.println("Error: el periodo de revision (-vp/vperiod)"+
+    	                       " debe ser > 0");
+        	System.exit(1);
+    	}
+    	
+    	if (fitness_cache_size < 0) {
+    		System.err.println("Error: el tamaño del cache de costos (-fc/fcache)"+
+    	                       " debe ser >= 0");
+        	System.exit(1);
+    	}
+    	
+    	if (nn_size <= 0) {
+    		System.err.println("Error: el largo de las listas de vecinos (-nn/nnsize)"+
+    	                       " debe ser > 0");
+        	System.exit(1);
+    	}
+    	
     	if (pop_size <= 1) {
     		System.err.println("Error: tamaño de la poblacion (-p/psize)"+
     	                       " debe ser > 1");
@@ -0,0 +1,45 @@
+package algorithms;
+/* CharDistanceMatrix class
+ * Matriz de distancias completa (orden por filas) guardada con 16 bits
+ * sin signo por distancia, para instancias cuya distancia maxima es
+ * menor o igual a Character.MAX_VALUE
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public class CharDistanceMatrix extends WritableDistanceMatrix {
+    /* distancias: la distancia de i a j esta en distance[i*n+j] */
+    private final char[] distance;
+
+    public CharDistanceMatrix (int _n)
+    /*
+     * FUNCTION: Constructor clase CharDistanceMatrix
+     * INPUT: numero de nodos: _n
+     * COMMENTS: las n*n distancias deben caber en un arreglo de Java
+     */
+    {
+        super(_n);
+        if ((long) _n * _n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("matriz de " + _n + " nodos demasiado grande");
+        distance = new char[_n * _n];
+    };
+
+    @Override
+    public int entry_bytes () {
+        return 2;
+    };
+
+    @Override
+    public int get (int i, int j) {
+        return distance[i * n + j];
+    };
+
+    @Override
+    public void set (int i, int j, int value) {
+        if (value < 0 || value > Character.MAX_VALUE)
+            throw new IllegalArgumentException("distancia " + value + " no cabe en 16 bits");
+        distance[i * n + j] = (char) value;
+    };
+}
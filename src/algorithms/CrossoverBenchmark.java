@@ -0,0 +1,103 @@
+package algorithms;
+/* CrossoverBenchmark class
+* Mide el rendimiento de los operadores de cruzamiento: hijos por segundo
+* y costo promedio de los hijos respecto al de los padres. Los padres son
+* 10 tours aleatorios (semilla fija) que se cruzan por pares consecutivos;
+* los hijos se escriben en una poblacion que se vacia al llenarse, igual
+* que en cada generacion del algoritmo genetico. Cada operador se ejecuta
+* primero sin medir para que la JVM lo compile. La salida de los
+* operadores (PMX imprime su punto de corte) se descarta mientras se mide
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+* Uso: java algorithms.CrossoverBenchmark instancia [hijos] [operadores]
+*      hijos por operador (20000 por omision), operadores separados por
+*      coma (ox,opx,pmx,erx,eax,gpx), todos por omision
+*/
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+public class CrossoverBenchmark {
+
+	/* individuos de la poblacion de padres */
+	private static final int PARENTS = 10;
+
+	/* hijos guardados antes de vaciar la poblacion de hijos */
+	private static final int BATCH = 1000;
+
+	public static void main (String[] args)
+    /*
+     * FUNCTION: main: ejecuta el benchmark e imprime una linea por operador
+     * INPUT: ver Uso
+     * OUTPUT: ninguno
+     */
+	{
+		if (args.length == 0) {
+			System.err.println("Uso: java algorithms.CrossoverBenchmark instancia [hijos] [operadores]");
+			System.exit(1);
+		}
+		int children = (args.length > 1) ? Integer.parseInt(args[1]) : 20000;
+		Population.CrossoverType[] types = Population.CrossoverType.values();
+		if (args.length > 2) {
+			String[] names = args[2].split(",");
+			types = new Population.CrossoverType[names.length];
+			for (int i = 0; i < names.length; i++)
+				types[i] = Population.CrossoverType.valueOf(names[i].trim().toUpperCase());
+		}
+
+		Utilities.seed = 1;
+		TSP problem = new TSP(args[0]);
+		Population parents = new Population(PARENTS, PARENTS, problem);
+		Population offspring = new Population(problem, BATCH + 2);
+		long parent_cost = 0;
+		for (int i = 0; i < PARENTS; i++)
+			parent_cost += parents.getFitness(i);
+
+		PrintStream out = System.out;
+		PrintStream quiet = new PrintStream(new OutputStream() {
+			public void write (int b) {}
+		});
+		out.println();
+		for (Population.CrossoverType type : types) {
+			System.setOut(quiet);
+			run(parents, offspring, type, children);
+			long start = System.nanoTime();
+			double child_cost = run(parents, offspring, type, children);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.setOut(out);
+			out.printf("%-4s %10.0f hijos/s %9.1f us/hijo  costo hijos/padres %.3f%n",
+					type, children / seconds, 1e6 * seconds / children,
+					child_cost / ((double) parent_cost / PARENTS));
+		}
+	};
+
+	private static double run (Population parents, Population offspring,
+			Population.CrossoverType type, int children)
+    /*
+     * FUNCTION: run: genera hijos con un operador de cruzamiento
+     * INPUT: poblacion de padres: parents, poblacion de hijos: offspring,
+     *        operador: type, cantidad de hijos: children
+     * OUTPUT: costo promedio de los hijos
+     */
+	{
+		int[] pair = new int[2];
+		double cost = 0;
+		int made = 0, k = 0;
+
+		offspring.clear();
+		while (made < children) {
+			pair[0] = k;
+			pair[1] = (k + 1) % PARENTS;
+			k = pair[1];
+			parents.crossover(pair, type, false, offspring);
+			made += 2;
+			if (offspring.size() >= BATCH || made >= children) {
+				for (int i = 0; i < offspring.size(); i++)
+					cost += offspring.getFitness(i);
+				offspring.clear();
+			}
+		}
+		return cost / made;
+	};
+}
@@ -0,0 +1,57 @@
+package algorithms;
+/* DistanceMatrix class
+ * Clase abstracta que representa el almacenamiento de las distancias
+ * entre los nodos de una instancia del TSP
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public abstract class DistanceMatrix {
+    /* numero de nodos */
+    protected final int n;
+
+    protected DistanceMatrix (int _n)
+    /*
+     * FUNCTION: Constructor clase DistanceMatrix
+     * INPUT: numero de nodos: _n
+     */
+    {
+        n = _n;
+    };
+
+    public int size ()
+    /*
+     * FUNCTION: size: obtiene el numero de nodos
+     * OUTPUT: numero de nodos
+     */
+    {
+        return n;
+    };
+
+    public boolean is_triangular ()
+    /*
+     * FUNCTION: is_triangular: indica si solo se guarda el triangulo superior
+     * OUTPUT: TRUE si la matriz es triangular, FALSE si es completa
+     */
+    {
+        return false;
+    };
+
+    public int entry_bytes ()
+    /*
+     * FUNCTION: entry_bytes: bytes usados por cada distancia guardada
+     * OUTPUT: 4 (int) o 2 (char)
+     */
+    {
+        return 4;
+    };
+
+    public abstract int get (int i, int j);
+    /*
+     * FUNCTION: get: obtiene la distancia entre dos nodos
+     * INPUT: indices i, j de los nodos
+     * OUTPUT: distancia entre los nodos i, j
+     */
+}
@@ -0,0 +1,707 @@
+package algorithms;
+/* EdgeAssembly class
+* Espacio de trabajo del cruzamiento EAX (edge assembly crossover).
+*
+* prepare construye los ciclos AB de dos padres A y B: ciclos que
+* alternan aristas de A y de B, sin las aristas comunes. child parte de
+* un padre base y, para varios ciclos AB elegidos al azar (un ciclo por
+* hijo, E-set de un ciclo), quita del base las aristas del ciclo que son
+* suyas y agrega las del otro padre. El resultado son subtours, que se
+* unen con movimientos tipo 2-opt entre el subtour mas pequeño y los
+* vecinos cercanos (nn_list) de sus nodos. Se devuelve el mejor hijo.
+*
+* Evaluar un hijo no recorre el tour: los subtours iniciales se obtienen
+* de los segmentos del base entre las aristas eliminadas (cortes), los
+* nodos tocados guardan sus dos vecinos en link0/link1 (los demas tienen
+* sus vecinos del base) y cada union junta dos subtours en un union-find.
+* El costo se obtiene sumando las diferencias de cada cambio, y solo el
+* hijo elegido se escribe completo. Los arreglos se reutilizan entre
+* cruzamientos
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+import java.util.Arrays;
+
+public class EdgeAssembly {
+
+	/* hijos evaluados por cada padre base */
+	static int children = 10;
+
+	/* vecinos cercanos revisados por nodo al unir subtours */
+	static int nn_merge = 10;
+
+	/* instancia */
+	private int n;
+	private DistanceMatrix distance;
+	private int[][] nn_list;
+
+	/* posicion de cada nodo en los padres A y B */
+	private int[] pos_a;
+	private int[] pos_b;
+
+	/* aristas no comunes que aun no estan en un ciclo: rem_a[2v..2v+cnt_a[v])
+	   son los vecinos de v en A, lo mismo para B */
+	private int[] rem_a, cnt_a, rem_b, cnt_b;
+
+	/* camino alternante en construccion; at[2v+k] es el indice de v en
+	   el camino con paridad k, o -1 */
+	private int[] path, at;
+
+	/* nodos que aun tienen aristas de A sin usar */
+	private int[] active;
+
+	/* ciclos AB: nodos cyc_nodes[cyc_start[c] .. +cyc_len[c]) y tipo de
+	   la primera arista (0: A, 1: B), las siguientes alternan */
+	private int[] cyc_nodes, cyc_start, cyc_len, cyc_first;
+	private int ncyc;
+	private int[] order;
+
+	/* padre base del hijo actual: tour, posicion donde comienza, indice
+	   inverso y tipo de sus aristas en los ciclos (0: A, 1: B) */
+	private int[] base;
+	private int boff;
+	private int[] bpos;
+	private int btype;
+
+	/* costo del hijo actual */
+	private long cost;
+
+	/* vecinos de los nodos tocados por el hijo actual: link0[v] y
+	   link1[v] valen si touched[v] == stamp, -1 es un vecino eliminado */
+	private int[] link0, link1, touched;
+	private int stamp;
+
+	/* subtours iniciales (ver label): cortes ordenados scut[0..m), extremo
+	   unido a cada extremo de segmento y subtour de cada segmento */
+	private int[] scut;
+	private int m;
+	private int[] partner;
+	private int[] seg_sub;
+	private int nsub;
+
+	/* union-find de subtours: padre, tamaño y un nodo de cada raiz */
+	private int[] uf, sub_size, sub_node;
+
+	/* monticulo de subtours por tamaño: (tamaño << 32) | subtour */
+	private long[] heap;
+	private int nheap;
+
+	/* vecinos de un nodo en el hijo actual (ver neighbors) */
+	private int nb0, nb1;
+
+	/* mejor union encontrada por merge */
+	private long best_gain;
+	private int bu, ba, bv, bb;
+	private boolean bcross;
+
+	public EdgeAssembly (TSP problem)
+    /*
+     * FUNCTION: Constructor clase EdgeAssembly
+     * INPUT: instancia del TSP: problem
+     */
+	{
+		n = problem.getSize();
+		distance = problem.get_distance_matrix();
+		nn_list = problem.get_nn_list();
+		pos_a = new int[n];
+		pos_b = new int[n];
+		rem_a = new int[2 * n];
+		rem_b = new int[2 * n];
+		cnt_a = new int[n];
+		cnt_b = new int[n];
+		path = new int[2 * n + 2];
+		at = new int[2 * n];
+		active = new int[n];
+		cyc_nodes = new int[2 * n];
+		cyc_start = new int[n];
+		cyc_len = new int[n];
+		cyc_first = new int[n];
+		order = new int[n];
+		link0 = new int[n];
+		link1 = new int[n];
+		touched = new int[n];
+		scut = new int[n];
+		partner = new int[2 * n];
+		seg_sub = new int[n];
+		uf = new int[n];
+		sub_size = new int[n];
+		sub_node = new int[n];
+		heap = new long[2 * n];
+	};
+
+	public int prepare (int[] ta, int offa, int[] tb, int offb)
+    /*
+     * FUNCTION: prepare: construye los ciclos AB de dos padres
+     * INPUT: tours de los padres A y B guardados desde ta[offa] y tb[offb]
+     * OUTPUT: cantidad de ciclos AB
+     * COMMENTS: los ciclos se forman recorriendo aristas de A y B en forma
+     *           alternada, eligiendo al azar entre las disponibles, y se
+     *           cierran cuando el camino vuelve a un nodo con la misma
+     *           paridad. Los padres no deben modificarse hasta el ultimo child
+     */
+	{
+		int s, cur, nxt, len, idx, j, k, nactive, ncn;
+		int[] rem, cnt;
+
+		for (int i = 0; i < n; i++) {
+			pos_a[ta[offa + i]] = i;
+			pos_b[tb[offb + i]] = i;
+		}
+		Arrays.fill(cnt_a, 0);
+		Arrays.fill(cnt_b, 0);
+		Arrays.fill(at, -1);
+		for (int i = 0; i < n; i++) {
+			int u = ta[offa + i], v = ta[offa + i + 1];
+			if (!adjacent(pos_b, u, v)) {
+				rem_a[2 * u + cnt_a[u]++] = v;
+				rem_a[2 * v + cnt_a[v]++] = u;
+			}
+			u = tb[offb + i];
+			v = tb[offb + i + 1];
+			if (!adjacent(pos_a, u, v)) {
+				rem_b[2 * u + cnt_b[u]++] = v;
+				rem_b[2 * v + cnt_b[v]++] = u;
+			}
+		}
+		nactive = 0;
+		for (int v = 0; v < n; v++)
+			if (cnt_a[v] > 0) active[nactive++] = v;
+
+		ncyc = 0;
+		ncn = 0;
+		while (true) {
+			/* nodo inicial al azar entre los que tienen aristas de A */
+			s = -1;
+			while (nactive > 0) {
+				k = Utilities.random_n(nactive);
+				if (cnt_a[active[k]] > 0) {
+					s = active[k];
+					break;
+				}
+				active[k] = active[--nactive];
+			}
+			if (s < 0) break;
+
+			path[0] = s;
+			at[2 * s] = 0;
+			len = 1;
+			while (true) {
+				idx = len - 1;
+				cur = path[idx];
+				/* la arista que sale de path[idx] es de A si idx es par */
+				rem = ((idx & 1) == 0) ? rem_a : rem_b;
+				cnt = ((idx & 1) == 0) ? cnt_a : cnt_b;
+				if (cnt[cur] == 0) {
+					/* solo ocurre en el nodo inicial, el camino termino */
+					at[2 * cur] = -1;
+					break;
+				}
+				k = (cnt[cur] == 1) ? 0 : Utilities.random_n(cnt[cur]);
+				nxt = rem[2 * cur + k];
+				remove(rem, cnt, cur, nxt);
+				remove(rem, cnt, nxt, cur);
+
+				j = at[2 * nxt + (len & 1)];
+				if (j >= 0) {
+					/* ciclo path[j..len-1], vuelve a path[j] == nxt */
+					cyc_start[ncyc] = ncn;
+					cyc_len[ncyc] = len - j;
+					cyc_first[ncyc] = j & 1;
+					for (int i = j; i < len; i++)
+						cyc_nodes[ncn++] = path[i];
+					for (int i = j + 1; i < len; i++)
+						at[2 * path[i] + (i & 1)] = -1;
+					ncyc++;
+					len = j + 1;
+				} else {
+					at[2 * nxt + (len & 1)] = len;
+					path[len++] = nxt;
+				}
+			}
+		}
+		for (int c = 0; c < ncyc; c++)
+			order[c] = c;
+		return ncyc;
+	};
+
+	public long child (int[] tb_base, int off_base, boolean base_is_a, long base_cost, int[] out, int ooff)
+    /*
+     * FUNCTION: child: construye el mejor de varios hijos de un padre base
+     * INPUT: tour del padre base desde tb_base[off_base] (el mismo A o B
+     *        de prepare): base_is_a indica cual, costo del base: base_cost,
+     *        arreglo donde escribir el hijo desde out[ooff] (n+1 nodos)
+     * OUTPUT: costo del hijo escrito
+     * COMMENTS: se evaluan min(children, ciclos) hijos con ciclos AB
+     *           distintos elegidos al azar. Sin ciclos AB (padres con las
+     *           mismas aristas) el hijo es una copia del base
+     */
+	{
+		int k, c, best_c = -1;
+		long best = Long.MAX_VALUE;
+
+		base = tb_base;
+		boff = off_base;
+		bpos = base_is_a ? pos_a : pos_b;
+		btype = base_is_a ? 0 : 1;
+
+		if (ncyc == 0) {
+			System.arraycopy(base, boff, out, ooff, n + 1);
+			return base_cost;
+		}
+
+		k = Math.min(children, ncyc);
+		for (int i = 0; i < k; i++) {
+			/* eleccion sin repeticion: los elegidos quedan en order[0..k) */
+			int r = i + Utilities.random_n(ncyc - i);
+			c = order[r];
+			order[r] = order[i];
+			order[i] = c;
+
+			assemble(c, base_cost);
+			if (cost < best) {
+				best = cost;
+				best_c = c;
+			}
+		}
+
+		/* reconstruir el mejor, la union de subtours es determinista */
+		assemble(best_c, base_cost);
+		write(out, ooff);
+		return cost;
+	};
+
+	private void assemble (int c, long base_cost)
+    /*
+     * FUNCTION: assemble: aplica un ciclo AB al base y une los subtours
+     * INPUT: ciclo AB: c, costo del base: base_cost
+     * OUTPUT: ninguno
+     * COMMENTS: deja el hijo en link0/link1 y su costo en cost
+     */
+	{
+		int st = cyc_start[c], len = cyc_len[c];
+		int u, v, a, b, su, sv, r;
+
+		if (++stamp == Integer.MAX_VALUE) {
+			Arrays.fill(touched, 0);
+			stamp = 1;
+		}
+		cost = base_cost;
+		/* primero eliminar las aristas del base y despues agregar las
+		   del otro padre, un nodo puede aparecer dos veces en el ciclo */
+		m = 0;
+		for (int i = 0; i < len; i++) {
+			if (((cyc_first[c] + i) & 1) != btype) continue;
+			u = cyc_nodes[st + i];
+			v = cyc_nodes[st + ((i + 1 == len) ? 0 : i + 1)];
+			cost -= distance.get(u, v);
+			unlink(u, v);
+			scut[m++] = cut_of(u, v);
+		}
+		for (int i = 0; i < len; i++) {
+			if (((cyc_first[c] + i) & 1) == btype) continue;
+			u = cyc_nodes[st + i];
+			v = cyc_nodes[st + ((i + 1 == len) ? 0 : i + 1)];
+			cost += distance.get(u, v);
+			link(u, v);
+		}
+		label(c);
+
+		/* unir el subtour mas pequeño con otro hasta que quede uno */
+		nheap = 0;
+		for (int t = 0; t < nsub; t++)
+			push(t);
+		while (nsub > 1) {
+			su = pop();
+			merge(su);
+			sv = find(seg_sub[segment_of_pos(bpos[bv])]);
+			a = ba;
+			b = bb;
+			unlink(bu, a);
+			unlink(bv, b);
+			if (bcross) {
+				link(bu, b);
+				link(a, bv);
+			} else {
+				link(bu, bv);
+				link(a, b);
+			}
+			cost += best_gain;
+			/* juntar su con sv */
+			r = (sub_size[su] < sub_size[sv]) ? sv : su;
+			uf[su] = r;
+			uf[sv] = r;
+			sub_size[r] = sub_size[su] + sub_size[sv];
+			sub_node[r] = bv;
+			push(r);
+			nsub--;
+		}
+	};
+
+	private void label (int c)
+    /*
+     * FUNCTION: label: subtours que deja el ciclo AB en el base
+     * INPUT: ciclo AB aplicado: c
+     * OUTPUT: ninguno
+     * COMMENTS: los cortes scut[0..m) dividen el base en segmentos; el
+     *           segmento j va de la posicion scut[j]+1 a scut[j+1], su
+     *           extremo inicial es 2j+1 y el final 2(j+1) modulo 2m. Las
+     *           aristas agregadas unen extremos y cada ciclo de segmentos
+     *           es un subtour
+     */
+	{
+		int st = cyc_start[c], len = cyc_len[c];
+		int e, e0, s, size;
+
+		Arrays.sort(scut, 0, m);
+		Arrays.fill(partner, 0, 2 * m, -1);
+		for (int i = 0; i < len; i++) {
+			if (((cyc_first[c] + i) & 1) == btype) continue;
+			int eu = free_end(cyc_nodes[st + i]);
+			int ev = free_end(cyc_nodes[st + ((i + 1 == len) ? 0 : i + 1)]);
+			partner[eu] = ev;
+			partner[ev] = eu;
+		}
+
+		Arrays.fill(seg_sub, 0, m, -1);
+		nsub = 0;
+		for (int j = 0; j < m; j++) {
+			if (seg_sub[j] >= 0) continue;
+			size = 0;
+			e0 = 2 * j + 1;
+			e = e0;
+			do {
+				s = segment_of_end(e);
+				seg_sub[s] = nsub;
+				size += segment_length(s);
+				e = partner[other_end(e)];
+			} while (e != e0);
+			uf[nsub] = nsub;
+			sub_size[nsub] = size;
+			sub_node[nsub] = base[boff + scut[j] + 1];
+			nsub++;
+		}
+	};
+
+	private void merge (int small)
+    /*
+     * FUNCTION: merge: busca la mejor union de un subtour con otro
+     * INPUT: raiz del subtour mas pequeño: small
+     * OUTPUT: ninguno
+     * COMMENTS: para cada nodo u del subtour y cada vecino cercano v fuera
+     *           de el, cambia una arista de u y una de v por dos aristas
+     *           entre ambos subtours. Si ningun vecino cercano sirve se
+     *           prueba un nodo del subtour contra todos los demas. Deja el
+     *           resultado en best_gain, bu, ba, bv, bb y bcross
+     */
+	{
+		int u, prev, next, v, k, start;
+		int[] nn;
+
+		best_gain = Long.MAX_VALUE;
+		start = sub_node[small];
+		u = start;
+		prev = -1;
+		do {
+			nn = nn_list[u];
+			k = Math.min(nn_merge, nn.length);
+			for (int t = 0; t < k; t++) {
+				v = nn[t];
+				if (find(seg_sub[segment_of_pos(bpos[v])]) != small)
+					try_join(u, v);
+			}
+			/* siguiente nodo del subtour */
+			neighbors(u);
+			next = (nb0 != prev) ? nb0 : nb1;
+			prev = u;
+			u = next;
+		} while (u != start);
+
+		if (best_gain == Long.MAX_VALUE) {
+			for (v = 0; v < n; v++)
+				if (find(seg_sub[segment_of_pos(bpos[v])]) != small)
+					try_join(start, v);
+		}
+	};
+
+	private void try_join (int u, int v)
+    /*
+     * FUNCTION: try_join: evalua las uniones entre los nodos u y v
+     * INPUT: nodo del subtour mas pequeño: u, nodo de otro subtour: v
+     * OUTPUT: ninguno
+     * COMMENTS: elimina (u,a) y (v,b), con a y b vecinos de u y v, y
+     *           agrega (u,v),(a,b) o (u,b),(a,v)
+     */
+	{
+		int u0, u1, v0, v1, a, b;
+		long g;
+
+		neighbors(u);
+		u0 = nb0;
+		u1 = nb1;
+		neighbors(v);
+		v0 = nb0;
+		v1 = nb1;
+		for (int i = 0; i < 2; i++) {
+			a = (i == 0) ? u0 : u1;
+			for (int k = 0; k < 2; k++) {
+				b = (k == 0) ? v0 : v1;
+				g = - distance.get(u, a) - distance.get(v, b);
+				if (g + distance.get(u, v) + distance.get(a, b) < best_gain) {
+					best_gain = g + distance.get(u, v) + distance.get(a, b);
+					bu = u; ba = a; bv = v; bb = b; bcross = false;
+				}
+				if (g + distance.get(u, b) + distance.get(a, v) < best_gain) {
+					best_gain = g + distance.get(u, b) + distance.get(a, v);
+					bu = u; ba = a; bv = v; bb = b; bcross = true;
+				}
+			}
+		}
+	};
+
+	private void write (int[] out, int ooff)
+    /*
+     * FUNCTION: write: escribe el hijo actual, que debe ser un solo tour
+     * INPUT: arreglo donde escribir: out, posicion donde comienza: ooff
+     * OUTPUT: ninguno
+     * COMMENTS: recorre los vecinos desde el primer nodo del base
+     */
+	{
+		int u = base[boff], prev = -1, next;
+		for (int i = 0; i < n; i++) {
+			out[ooff + i] = u;
+			neighbors(u);
+			next = (nb0 != prev) ? nb0 : nb1;
+			prev = u;
+			u = next;
+		}
+		out[ooff + n] = out[ooff];
+	};
+
+	private void neighbors (int u)
+    /*
+     * FUNCTION: neighbors: vecinos de u en el hijo actual
+     * INPUT: nodo: u
+     * OUTPUT: ninguno, deja los vecinos en nb0 y nb1
+     */
+	{
+		if (touched[u] == stamp) {
+			nb0 = link0[u];
+			nb1 = link1[u];
+		} else {
+			int p = bpos[u];
+			nb0 = base[boff + ((p == 0) ? n - 1 : p - 1)];
+			nb1 = base[boff + p + 1];
+		}
+	};
+
+	private void unlink (int u, int v)
+    /*
+     * FUNCTION: unlink: elimina la arista (u,v) del hijo actual
+     * INPUT: extremos: u, v
+     * OUTPUT: ninguno
+     */
+	{
+		touch(u);
+		touch(v);
+		if (link0[u] == v) link0[u] = -1; else link1[u] = -1;
+		if (link0[v] == u) link0[v] = -1; else link1[v] = -1;
+	};
+
+	private void link (int u, int v)
+    /*
+     * FUNCTION: link: agrega la arista (u,v) al hijo actual
+     * INPUT: extremos: u, v, cada uno con un vecino eliminado
+     * OUTPUT: ninguno
+     */
+	{
+		touch(u);
+		touch(v);
+		if (link0[u] == -1) link0[u] = v; else link1[u] = v;
+		if (link0[v] == -1) link0[v] = u; else link1[v] = u;
+	};
+
+	private void touch (int u)
+    /*
+     * FUNCTION: touch: copia los vecinos del base de u a link0/link1
+     * INPUT: nodo: u
+     * OUTPUT: ninguno
+     * COMMENTS: no hace nada si u ya fue tocado por el hijo actual
+     */
+	{
+		if (touched[u] == stamp) return;
+		int p = bpos[u];
+		link0[u] = base[boff + ((p == 0) ? n - 1 : p - 1)];
+		link1[u] = base[boff + p + 1];
+		touched[u] = stamp;
+	};
+
+	private int find (int s)
+    /*
+     * FUNCTION: find: raiz del subtour s en el union-find
+     * INPUT: subtour inicial: s
+     * OUTPUT: raiz
+     * COMMENTS: acorta el camino a la mitad en cada paso
+     */
+	{
+		while (uf[s] != s) {
+			uf[s] = uf[uf[s]];
+			s = uf[s];
+		}
+		return s;
+	};
+
+	private void push (int s)
+    /*
+     * FUNCTION: push: agrega un subtour al monticulo
+     * INPUT: raiz del subtour: s
+     * OUTPUT: ninguno
+     */
+	{
+		long key = ((long) sub_size[s] << 32) | s;
+		int i = nheap++;
+		while (i > 0 && heap[(i - 1) >> 1] > key) {
+			heap[i] = heap[(i - 1) >> 1];
+			i = (i - 1) >> 1;
+		}
+		heap[i] = key;
+	};
+
+	private int pop ()
+    /*
+     * FUNCTION: pop: saca el subtour mas pequeño del monticulo
+     * INPUT: ninguno
+     * OUTPUT: raiz del subtour
+     * COMMENTS: descarta las entradas de subtours que ya se unieron a
+     *           otro o que cambiaron de tamaño
+     */
+	{
+		while (true) {
+			long top = heap[0];
+			long last = heap[--nheap];
+			int i = 0, c;
+			while ((c = 2 * i + 1) < nheap) {
+				if (c + 1 < nheap && heap[c + 1] < heap[c]) c++;
+				if (heap[c] >= last) break;
+				heap[i] = heap[c];
+				i = c;
+			}
+			heap[i] = last;
+			int s = (int) top;
+			if (uf[s] == s && sub_size[s] == (int) (top >>> 32))
+				return s;
+		}
+	};
+
+	private int cut_of (int u, int v)
+    /*
+     * FUNCTION: cut_of: corte que elimina la arista (u,v) del base
+     * INPUT: nodos vecinos en el base: u, v
+     * OUTPUT: posicion p tal que la arista es (base[p], base[p+1])
+     */
+	{
+		int p = bpos[u], q = bpos[v];
+		if (q == p + 1 || (p == n - 1 && q == 0))
+			return p;
+		return q;
+	};
+
+	private int free_end (int u)
+    /*
+     * FUNCTION: free_end: extremo de segmento en el nodo u sin arista
+     *           agregada asignada
+     * INPUT: nodo: u
+     * OUTPUT: extremo (ver label)
+     */
+	{
+		int p = bpos[u];
+		int k = Arrays.binarySearch(scut, 0, m, p);
+		if (k >= 0 && partner[2 * k] < 0)
+			return 2 * k;
+		k = Arrays.binarySearch(scut, 0, m, (p == 0) ? n - 1 : p - 1);
+		if (k >= 0 && partner[2 * k + 1] < 0)
+			return 2 * k + 1;
+		throw new IllegalStateException("EAX: nodo " + u + " sin extremo libre");
+	};
+
+	private int segment_of_pos (int p)
+    /*
+     * FUNCTION: segment_of_pos: segmento que contiene la posicion p
+     * INPUT: posicion en el base: p
+     * OUTPUT: j con scut[j] < p <= scut[j+1], o m-1 si da la vuelta
+     */
+	{
+		int lo = 0, hi = m - 1, j = m - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (scut[mid] < p) {
+				j = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return j;
+	};
+
+	private int segment_of_end (int e)
+    /*
+     * FUNCTION: segment_of_end: segmento al que pertenece un extremo
+     * INPUT: extremo: e
+     * OUTPUT: segmento
+     */
+	{
+		if ((e & 1) == 1) return e >> 1;
+		return (e == 0) ? m - 1 : (e >> 1) - 1;
+	};
+
+	private int other_end (int e)
+    /*
+     * FUNCTION: other_end: el otro extremo del segmento de e
+     * INPUT: extremo: e
+     * OUTPUT: extremo
+     */
+	{
+		int j = segment_of_end(e);
+		if ((e & 1) == 1) return 2 * ((j + 1 == m) ? 0 : j + 1);
+		return 2 * j + 1;
+	};
+
+	private int segment_length (int j)
+    /*
+     * FUNCTION: segment_length: cantidad de nodos del segmento j
+     * INPUT: segmento: j
+     * OUTPUT: cantidad de nodos
+     */
+	{
+		int d = scut[(j + 1 == m) ? 0 : j + 1] - scut[j];
+		return (d > 0) ? d : d + n;
+	};
+
+	private boolean adjacent (int[] pos, int u, int v)
+    /*
+     * FUNCTION: adjacent: revisa si u y v son vecinos en un tour
+     * INPUT: indice inverso del tour: pos, nodos: u, v
+     * OUTPUT: true si (u,v) es una arista del tour
+     */
+	{
+		int d = pos[u] - pos[v];
+		return d == 1 || d == -1 || d == n - 1 || d == 1 - n;
+	};
+
+	private static void remove (int[] rem, int[] cnt, int u, int v)
+    /*
+     * FUNCTION: remove: quita v de los vecinos pendientes de u
+     * INPUT: vecinos pendientes: rem, cantidades: cnt, nodos: u, v
+     * OUTPUT: ninguno
+     */
+	{
+		for (int k = 0; k < cnt[u]; k++) {
+			if (rem[2 * u + k] == v) {
+				rem[2 * u + k] = rem[2 * u + --cnt[u]];
+				return;
+			}
+		}
+	};
+}
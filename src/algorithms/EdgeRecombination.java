@@ -0,0 +1,154 @@
+package algorithms;
+/* EdgeRecombination class
+* Espacio de trabajo del cruzamiento ERX (edge recombination). La tabla
+* de aristas de los padres es un arreglo plano de 4 casillas por nodo:
+* adj[4v .. 4v+deg[v]) son los vecinos de v en alguno de los padres que
+* aun no estan en el hijo. Los nodos que faltan por visitar se guardan en
+* free[0..remaining) con su indice en where, para elegir uno al azar y
+* eliminarlo en O(1). Los arreglos se crean una vez y se reutilizan, por
+* lo que cada hijo no crea objetos; cada Population tiene su propio
+* espacio de trabajo
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+
+public class EdgeRecombination {
+
+	/* cantidad de nodos */
+	private int n;
+
+	/* tabla de aristas: 4 casillas por nodo y cantidad de vecinos */
+	private int[] adj;
+	private int[] deg;
+
+	/* nodos sin visitar e indice de cada nodo en free */
+	private int[] free;
+	private int[] where;
+	private int remaining;
+
+	/* vecinos empatados en el menor grado */
+	private int[] ties = new int[4];
+
+	public EdgeRecombination (int _n)
+    /*
+     * FUNCTION: Constructor clase EdgeRecombination
+     * INPUT: cantidad de nodos: _n
+     */
+	{
+		n = _n;
+		adj = new int[4 * n];
+		deg = new int[n];
+		free = new int[n];
+		where = new int[n];
+	};
+
+	public void build (int[] t1, int off1, int[] t2, int off2)
+    /*
+     * FUNCTION: build: construye la tabla de aristas de dos padres
+     * INPUT: tours de los padres guardados desde t1[off1] y t2[off2]
+     *        (n+1 nodos cada uno)
+     * OUTPUT: ninguno
+     * COMMENTS: una arista presente en ambos padres se guarda una vez
+     */
+	{
+		for (int v = 0; v < n; v++) {
+			deg[v] = 0;
+			free[v] = v;
+			where[v] = v;
+		}
+		remaining = n;
+		add_tour(t1, off1);
+		add_tour(t2, off2);
+	};
+
+	private void add_tour (int[] t, int off)
+    /*
+     * FUNCTION: add_tour: agrega las aristas de un tour a la tabla
+     * INPUT: tour guardado desde t[off]
+     * OUTPUT: ninguno
+     */
+	{
+		for (int i = off; i < off + n; i++) {
+			add_edge(t[i], t[i + 1]);
+			add_edge(t[i + 1], t[i]);
+		}
+	};
+
+	private void add_edge (int u, int v)
+    /*
+     * FUNCTION: add_edge: agrega v a los vecinos de u si no esta
+     * INPUT: nodos: u, v
+     * OUTPUT: ninguno
+     */
+	{
+		int b = 4 * u;
+		for (int k = 0; k < deg[u]; k++)
+			if (adj[b + k] == v) return;
+		adj[b + deg[u]++] = v;
+	};
+
+	private void visit (int v)
+    /*
+     * FUNCTION: visit: marca v como parte del hijo
+     * INPUT: nodo: v
+     * OUTPUT: ninguno
+     * COMMENTS: elimina v de free y de las listas de sus vecinos
+     */
+	{
+		int last = free[--remaining];
+		free[where[v]] = last;
+		where[last] = where[v];
+		where[v] = -1;
+
+		for (int k = 0; k < deg[v]; k++) {
+			int u = adj[4 * v + k];
+			int b = 4 * u;
+			for (int m = 0; m < deg[u]; m++) {
+				if (adj[b + m] == v) {
+					adj[b + m] = adj[b + --deg[u]];
+					break;
+				}
+			}
+		}
+	};
+
+	public void child (int start, int[] out, int off)
+    /*
+     * FUNCTION: child: construye un hijo desde la tabla de aristas
+     * INPUT: nodo inicial: start, arreglo donde escribir el hijo desde
+     *        out[off] (n+1 nodos)
+     * OUTPUT: ninguno
+     * COMMENTS: desde el nodo actual se sigue al vecino con menos vecinos
+     *           restantes (empates al azar); si no quedan vecinos se salta
+     *           a un nodo sin visitar al azar. Consume la tabla, build
+     *           debe llamarse antes de cada hijo
+     */
+	{
+		int v = start;
+		for (int i = 0; i < n; i++) {
+			out[off + i] = v;
+			visit(v);
+			if (remaining == 0) break;
+
+			int b = 4 * v;
+			if (deg[v] == 0) {
+				v = free[Utilities.random_n(remaining)];
+				continue;
+			}
+			int best = Integer.MAX_VALUE, nties = 0;
+			for (int k = 0; k < deg[v]; k++) {
+				int u = adj[b + k];
+				if (deg[u] < best) {
+					best = deg[u];
+					nties = 0;
+				}
+				if (deg[u] == best)
+					ties[nties++] = u;
+			}
+			v = (nties == 1) ? ties[0] : ties[Utilities.random_n(nties)];
+		}
+		out[off + n] = out[off];
+	};
+}
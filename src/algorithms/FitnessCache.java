@@ -0,0 +1,144 @@
+package algorithms;
+/* FitnessCache class
+* Cache acotado del costo de tours indexado por su huella (TourHash).
+* Tabla asociativa de 2 vias: cada huella tiene un grupo de dos casillas,
+* la usada mas recientemente va primero y al insertar se desaloja la
+* otra. Evita repetir compute_tour_length y tsp_check_tour para tours
+* que reaparecen despues del cruzamiento
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+
+public class FitnessCache {
+
+	/* huella y costo de cada casilla, huella 0 es una casilla vacia */
+	private long[] keys;
+	private long[] values;
+
+	/* mascara del primer elemento de un grupo */
+	private int mask;
+
+	/* contadores de consultas */
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public FitnessCache (int entries)
+    /*
+     * FUNCTION: Constructor clase FitnessCache
+     * INPUT: cantidad maxima de tours guardados: entries
+     * COMMENTS: la capacidad se redondea a una potencia de 2 (minimo 2)
+     */
+	{
+		int capacity = 2;
+		while (capacity < entries)
+			capacity <<= 1;
+		keys = new long[capacity];
+		values = new long[capacity];
+		mask = (capacity - 1) & ~1;
+	};
+
+	private int bucket (long key)
+    /*
+     * FUNCTION: bucket: primera casilla del grupo de una huella
+     * INPUT: huella: key
+     * OUTPUT: casilla par del grupo
+     */
+	{
+		return (int) (key ^ (key >>> 32)) & mask;
+	};
+
+	public long get (long key)
+    /*
+     * FUNCTION: get: busca el costo de un tour
+     * INPUT: huella del tour: key
+     * OUTPUT: costo guardado o -1 si no esta
+     */
+	{
+		int b = bucket(key);
+		if (key != 0) {
+			if (keys[b] == key) {
+				hits++;
+				return values[b];
+			}
+			if (keys[b + 1] == key) {
+				/* pasar al frente del grupo */
+				long v = values[b + 1];
+				keys[b + 1] = keys[b];
+				values[b + 1] = values[b];
+				keys[b] = key;
+				values[b] = v;
+				hits++;
+				return v;
+			}
+		}
+		misses++;
+		return -1;
+	};
+
+	public void put (long key, long value)
+    /*
+     * FUNCTION: put: guarda el costo de un tour
+     * INPUT: huella del tour: key, costo: value
+     * OUTPUT: ninguno
+     * COMMENTS: se llama despues de un get sin exito, por lo que la
+     *           huella no esta en el grupo
+     */
+	{
+		if (key == 0)
+			return;
+		int b = bucket(key);
+		if (keys[b + 1] != 0)
+			evictions++;
+		keys[b + 1] = keys[b];
+		values[b + 1] = values[b];
+		keys[b] = key;
+		values[b] = value;
+	};
+
+	public long getHits ()
+    /*
+     * FUNCTION: getHits
+     * INPUT: ninguno
+     * OUTPUT: consultas encontradas en el cache
+     */
+	{
+		return hits;
+	};
+
+	public long getMisses ()
+    /*
+     * FUNCTION: getMisses
+     * INPUT: ninguno
+     * OUTPUT: consultas no encontradas en el cache
+     */
+	{
+		return misses;
+	};
+
+	public long getEvictions ()
+    /*
+     * FUNCTION: getEvictions
+     * INPUT: ninguno
+     * OUTPUT: tours desalojados para guardar otros
+     */
+	{
+		return evictions;
+	};
+
+	public void print ()
+    /*
+     * FUNCTION: print: imprime los contadores del cache
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+	{
+		long total = hits + misses;
+		System.out.println("Cache de fitness: " + hits + " aciertos, " + misses +
+				" fallos, " + evictions + " desalojos (" +
+				String.format("%.1f", (total > 0) ? 100.0 * hits / total : 0.0) +
+				"% de evaluaciones ahorradas)");
+	};
+}
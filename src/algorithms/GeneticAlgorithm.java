@@ -1,5 +1,10 @@
 package algorithms;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
 public class GeneticAlgorithm {
 	
 	enum SelectionStrategy 
@@ -45,6 +50,21 @@ public class GeneticAlgorithm {
 	/* Mejor tour */
 	Tour best_tour;
 	
+	/* Con Population.reject_duplicates, intentos de hijos duplicados
+	   por hijo permitidos en una generacion antes de aceptarlos (evita
+	   un ciclo infinito si la poblacion convergio) */
+	static final int MAX_DUPLICATES = 10;
+	
+	/* Hijos duplicados rechazados en la ultima busqueda */
+	long rejected_duplicates;
+	
+	/* Archivo de traza: por cada mejora se escribe la generacion (int,
+	   -1 para la poblacion inicial), el costo (long) y el tour codificado
+	   con TourCodec.write, con los nodos numerados como en el archivo de
+	   la instancia aunque se use -rn. null si no se guarda */
+	static String trace_file = null;
+	private DataOutputStream trace;
+	
 	public GeneticAlgorithm (TSP _problem, Population.SelectionType _pselection_type,
 		   Population.CrossoverType _crossover_type, Population.MutationType _mutation_type, 
 		   SelectionStrategy _selection_strategy, Population.SelectionType _gselection_type,
@@ -71,6 +91,24 @@ public class GeneticAlgorithm {
 		System.out.println("\nInicializando Algoritmo Genetico ...");
 	};
 	
+    private void write_trace (int iteration)
+    /* FUNCTION: write_trace: agrega best_tour al archivo de traza
+     * INPUT: generacion en que se encontro: iteration
+     * OUTPUT: ninguno
+     * COMMENT: si falla la escritura se informa y se deja de escribir
+     */
+    {
+    	if (trace == null) return;
+    	try {
+    		trace.writeInt(iteration);
+    		trace.writeLong(best_tour.getCost());
+    		TourCodec.write(trace, best_tour, problem);
+    	} catch (IOException e) {
+    		System.err.println("Error: no se pudo escribir el archivo de traza " + trace_file);
+    		trace = null;
+    	}
+    };
+    
     public void print_best_solution (boolean full)
     /* FUNCTION: print_best_solution
      * INPUT: booleano que indica si la solucion debe ser impresa completa: full
@@ -101,24 +139,42 @@ public class GeneticAlgorithm {
 		int[] parents;
         int updated = 0;
         long previous_fitness;
+        /* los hijos se agregan de a 2 y con mu+lambda se les unen los padres */
+        int capacity = pop_size + offspring_size + 1;
 		
 		/* Inicializar poblacion */
 		System.out.println("Generando poblacion inicial ...");
-		Population population = new Population(pop_size, problem);
+		Population population = new Population(pop_size, capacity, problem);
 		
-		/* Inicializar poblacion de hijos */
-		Population offspring = new Population (problem);
+		/* Inicializar poblacion de hijos, con la misma capacidad para
+		   intercambiar los almacenes de ambas en cada generacion */
+		Population offspring = new Population (problem, capacity);
+		
+		/* Huellas de la poblacion y de los hijos de la generacion */
+		LongHashSet seen = Population.reject_duplicates ? new LongHashSet(capacity) : null;
+		int duplicates;
+		rejected_duplicates = 0;
+		
+        /* Guardar la mejor solución en best_tour */
+        if (best_tour == null) 
+        	best_tour = population.getBestTour();
+        else {
+        	population.copyBest(best_tour);
+        }
 		
 		/* Imprimir mejor solución encontrada */
 		System.out.println("... mejor individuo ...");
-		population.getBestTour().print();
+		best_tour.print();
         System.out.println("");
         
-        /* Guardar la mejor solución en best_tour */
-        if (best_tour == null) 
-        	best_tour = new Tour(population.getBestTour());
-        else {
-        	best_tour.Copy(population.getBestTour());
+        if (trace_file != null) {
+        	try {
+        		trace = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(trace_file)));
+        	} catch (IOException e) {
+        		System.err.println("Error: no se pudo crear el archivo de traza " + trace_file);
+        		System.exit(1);
+        	}
+        	write_trace(-1);
         }
         
         /* bucle principal del algoritmo */
@@ -126,26 +182,40 @@ public class GeneticAlgorithm {
 		while (terminationCondition(evaluation, max_evaluations, iteration, max_iterations)) {
             updated = 0;
             previous_fitness =  best_tour.getCost();
+            duplicates = 0;
+            if (seen != null) {
+            	seen.clear();
+            	population.addHashes(seen);
+            }
             
 			/* Aplicar cruzamiento para generar poblacion de hijos */
 			while (offspring.size() < offspring_size) {
 				parents = population.selectParents(pselection_type); 
-				offspring.add(population.crossover(parents, crossover_type, false));
+				population.crossover(parents, crossover_type, false, offspring);
+				/* descartar hijos repetidos */
+				if (seen != null && duplicates < MAX_DUPLICATES * offspring_size) {
+					duplicates += offspring.removeDuplicates(offspring.size() - 2, seen);
+				}
 			}
+			rejected_duplicates += duplicates;
             
 			/* Revisar si algun hijo sin mutacion es la mejor solucion hasta el momento */
-			if (offspring.getBestTour().getCost() < best_tour.getCost()) {
+			if (offspring.getBestFitness() < best_tour.getCost()) {
                 updated = 1;
-				best_tour.Copy(offspring.getBestTour());
+				offspring.copyBest(best_tour);
 			} 
 			
 			/* Aplicar mutacion */
 	        offspring.mutation(mutation_prob, mutation_type, false);
+	        
+	        /* Aplicar busqueda local */
+	        if (Population.local_search)
+	        	offspring.localSearch();
  
 			/* Revisar si algun hijo es la mejor solucion hasta el momento */
-			if (offspring.getBestTour().getCost() < best_tour.getCost()) {
+			if (offspring.getBestFitness() < best_tour.getCost()) {
                 updated = 1;
-				best_tour.Copy(offspring.getBestTour());
+				offspring.copyBest(best_tour);
 			} 
             
             System.out.print("Generacion " + iteration );
@@ -155,8 +225,10 @@ public class GeneticAlgorithm {
              	/* Reportar el mejor hijo */
 		        System.out.print(", mejor hijo: " + best_tour.getCost() + " (actualizado)\n");   
             } else {
-		        System.out.print(", mejor hijo: " + offspring.getBestTour().getCost() + "\n");   
+		        System.out.print(", mejor hijo: " + offspring.getBestFitness() + "\n");   
             }
+            if (updated == 1)
+            	write_trace(iteration);
 			
 		    /* Seleccionar nueva poblacion */
 		    if (selection_strategy == SelectionStrategy.MULAMBDA) {
@@ -165,7 +237,7 @@ public class GeneticAlgorithm {
 		    		/* Seleccionar desde los hijos */
 		    		offspring.selectPopulation(pop_size, gselection_type);
 		    	}
-		    	population.Copy(offspring);
+		    	population.exchange(offspring);
 
 		    } else if (selection_strategy == SelectionStrategy.MUPLUSLAMBDA) {
 		    	/* Seleccionar de los hijos y los padres */
@@ -173,14 +245,37 @@ public class GeneticAlgorithm {
 		    	offspring.joinPopulation(population);
 		    	/*Seleccionar de estas poblaciones */
 		    	offspring.selectPopulation(pop_size, gselection_type);
-		    	population.Copy(offspring);
+		    	population.exchange(offspring);
 		    }
 			
 			/* Incrementar contadores */
 			iteration = iteration + 1;
 			evaluation = evaluation + offspring_size;
+			/* offspring queda con el almacen de la poblacion anterior,
+			   que se reutiliza para los hijos de la siguiente generacion */
 			offspring.clear();
 		}
+		
+		if (trace != null) {
+			try {
+				trace.close();
+			} catch (IOException e) {
+				System.err.println("Error: no se pudo escribir el archivo de traza " + trace_file);
+			}
+			trace = null;
+		}
+		
+		if (seen != null) {
+			System.out.println("\nHijos duplicados rechazados: " + rejected_duplicates);
+		}
+		if (Tour.fitness_cache != null) {
+			System.out.println("");
+			Tour.fitness_cache.print();
+		}
+		if (TSP.validation != TSP.ValidationLevel.NONE) {
+			System.out.println("\nTours revisados (" + TSP.validation + "): " +
+					problem.get_checked_tours() + ", invalidos: " + problem.get_invalid_tours());
+		}
 	};
 
     
@@ -228,7 +323,7 @@ public class GeneticAlgorithm {
 		
 		/* Aplicar cruzamiento para generar poblacion de hijos */
 		System.out.println("\nHijos obtenidos del cruzamiento: ");
-		offspring.add(population.crossover(parents, crossover_type, true));
+		population.crossover(parents, crossover_type, true, offspring);
 		offspring.lprint();
 
 		/* Aplicar mutacion */
@@ -0,0 +1,102 @@
+package algorithms;
+/* GeoCheck class
+* Revisa que TSPlibReader.geo_table entregue exactamente las mismas
+* distancias GEO que la formula de TSPLIB (geo_distance): para todos los
+* pares de un conjunto de puntos aleatorios en formato grados.minutos,
+* con puntos repetidos y antipodas, y para puntos casi antipodas, donde
+* el coseno queda cerca de -1 y al final de la tabla de umbrales
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+* Uso: java algorithms.GeoCheck [cantidad de puntos] [semilla]
+*/
+import java.util.Random;
+
+public class GeoCheck {
+
+	public static void main (String[] args)
+    /*
+     * FUNCTION: main: ejecuta la revision e imprime la cantidad de
+     *           diferencias
+     * INPUT: cantidad de puntos aleatorios (2000 por omision) y semilla
+     * OUTPUT: ninguno, termina con codigo 1 si hay diferencias
+     */
+	{
+		int n = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 7;
+		long bad = random_pairs(n, new Random(seed)) + antipodal_pairs(100000);
+		if (bad > 0)
+			System.exit(1);
+	};
+
+	private static long random_pairs (int n, Random random)
+    /*
+     * FUNCTION: random_pairs: compara todos los pares de n puntos
+     *           aleatorios
+     * INPUT: cantidad de puntos: n, generador: random
+     * OUTPUT: cantidad de diferencias
+     * COMMENTS: uno de cada 50 puntos repite al anterior y otro es su
+     *           antipoda
+     */
+	{
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = (random.nextInt(181) - 90) + random.nextInt(60) / 100.0;
+			y[i] = (random.nextInt(361) - 180) + random.nextInt(60) / 100.0;
+			if (i % 50 == 1) {
+				x[i] = x[i - 1];
+				y[i] = y[i - 1];
+			} else if (i % 50 == 2) {
+				x[i] = -x[i - 1];
+				y[i] = (y[i - 1] > 0) ? y[i - 1] - 180 : y[i - 1] + 180;
+			}
+		}
+		TSPlibReader.geo_table geo = new TSPlibReader.geo_table(x, y);
+		long bad = 0;
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++)
+				if (!same(geo, x, y, i, j)) bad++;
+		System.out.println("GEO pares aleatorios: " + (long) n * n + ", diferencias: " + bad);
+		return bad;
+	};
+
+	private static long antipodal_pairs (int m)
+    /*
+     * FUNCTION: antipodal_pairs: compara (0,0) con m puntos del ecuador
+     *           casi antipodas, con longitud entre 179.50 y 179.60
+     * INPUT: cantidad de puntos: m
+     * OUTPUT: cantidad de diferencias
+     */
+	{
+		double[] x = new double[m + 1];
+		double[] y = new double[m + 1];
+		for (int i = 1; i <= m; i++)
+			y[i] = 179.5 + 0.1 * i / m;
+		TSPlibReader.geo_table geo = new TSPlibReader.geo_table(x, y);
+		long bad = 0;
+		for (int i = 1; i <= m; i++)
+			if (!same(geo, x, y, 0, i)) bad++;
+		System.out.println("GEO pares casi antipodas: " + m + ", diferencias: " + bad);
+		return bad;
+	};
+
+	private static boolean same (TSPlibReader.geo_table geo, double[] x, double[] y, int i, int j)
+    /*
+     * FUNCTION: same: compara la distancia de la tabla con la formula de
+     *           TSPLIB para un par de puntos
+     * INPUT: tabla: geo, coordenadas: x, y, puntos: i, j
+     * OUTPUT: true si ambas distancias son iguales
+     * COMMENTS: una excepcion de la tabla cuenta como diferencia
+     */
+	{
+		int d = TSPlibReader.geo_distance(x[i], y[i], x[j], y[j]);
+		try {
+			return geo.distance(i, j) == d;
+		} catch (RuntimeException e) {
+			System.out.println("GEO (" + x[i] + "," + y[i] + ") (" + x[j] + "," + y[j] + "): " + e);
+			return false;
+		}
+	};
+}
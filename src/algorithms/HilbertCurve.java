@@ -0,0 +1,82 @@
+package algorithms;
+/* HilbertCurve class
+ * Orden de los nodos a lo largo de una curva de Hilbert. Nodos cercanos
+ * en el plano quedan cercanos en el orden, por lo que al renumerarlos las
+ * filas de la matriz de distancias y de las listas de vecinos que usa un
+ * tour quedan cercanas en memoria
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+import java.util.Arrays;
+
+public class HilbertCurve {
+    /* bits por coordenada de la grilla, la curva tiene 2^(2*BITS) celdas
+       y su posicion cabe en un int positivo */
+    private static final int BITS = 15;
+
+    static int[] order (TSPlibReader.point[] nodeptr)
+    /*
+     * FUNCTION: order: ordena los nodos a lo largo de la curva
+     * INPUT: coordenadas de los nodos: nodeptr
+     * OUTPUT: arreglo order donde order[k] es el nodo en la posicion k de la curva
+     * COMMENTS: las coordenadas se escalan a una grilla cuadrada de
+     *           2^BITS x 2^BITS sobre el rectangulo que contiene a los nodos.
+     *           Los empates se ordenan por numero de nodo
+     */
+    {
+        int n = nodeptr.length;
+        double minx = Double.MAX_VALUE, maxx = -Double.MAX_VALUE;
+        double miny = Double.MAX_VALUE, maxy = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minx = Math.min(minx, nodeptr[i].x);
+            maxx = Math.max(maxx, nodeptr[i].x);
+            miny = Math.min(miny, nodeptr[i].y);
+            maxy = Math.max(maxy, nodeptr[i].y);
+        }
+        double span = Math.max(maxx - minx, maxy - miny);
+        double scale = (span > 0) ? ((1 << BITS) - 1) / span : 0;
+
+        /* clave de la curva en los 32 bits altos, nodo en los bajos */
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            int gx = (int) ((nodeptr[i].x - minx) * scale);
+            int gy = (int) ((nodeptr[i].y - miny) * scale);
+            keys[i] = ((long) index(gx, gy) << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[n];
+        for (int k = 0; k < n; k++)
+            order[k] = (int) keys[k];
+        return order;
+    };
+
+    static int index (int x, int y)
+    /*
+     * FUNCTION: index: posicion de una celda de la grilla en la curva
+     * INPUT: coordenadas de la celda: x, y en [0, 2^BITS)
+     * OUTPUT: distancia a lo largo de la curva, en [0, 2^(2*BITS))
+     * COMMENTS: algoritmo iterativo de rotacion por cuadrantes
+     */
+    {
+        int d = 0;
+        for (int s = 1 << (BITS - 1); s > 0; s >>= 1) {
+            int rx = ((x & s) != 0) ? 1 : 0;
+            int ry = ((y & s) != 0) ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            /* rotar el cuadrante */
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    };
+}
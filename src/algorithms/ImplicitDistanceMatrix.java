@@ -0,0 +1,94 @@
+package algorithms;
+/* ImplicitDistanceMatrix class
+ * Distancias calculadas bajo demanda desde las coordenadas de los
+ * nodos, para instancias demasiado grandes para una matriz n x n
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+import java.util.Arrays;
+
+public class ImplicitDistanceMatrix extends DistanceMatrix {
+    /* tamaño del cache de distancias para instancias GEO (potencia de 2,
+       0 lo desactiva). Las distancias euclidianas y ATT son mas baratas de
+       calcular que de buscar en el cache y no lo usan */
+    static int cache_size = 1 << 20;
+
+    /* coordenadas: el nodo i esta en (xy[2*i], xy[2*i+1]) */
+    private final double[] xy;
+    /* tipo de distancia de la instancia */
+    private final TSPlibReader.Distance_type type;
+    /* radianes, senos y cosenos precalculados para instancias GEO */
+    private final TSPlibReader.geo_table geo;
+    /* cache de mapeo directo: par de nodos y distancia guardada */
+    private final long[] cache_key;
+    private final int[] cache_value;
+    private final int cache_mask;
+
+    public ImplicitDistanceMatrix (TSPlibReader.point[] nodeptr, TSPlibReader.Distance_type _type)
+    /*
+     * FUNCTION: Constructor clase ImplicitDistanceMatrix
+     * INPUT: coordenadas de los nodos: nodeptr, tipo de distancia: _type
+     */
+    {
+        super(nodeptr.length);
+        type = _type;
+        xy = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            xy[2 * i] = nodeptr[i].x;
+            xy[2 * i + 1] = nodeptr[i].y;
+        }
+        if (type == TSPlibReader.Distance_type.GEO) {
+            double[] x = new double[n];
+            double[] y = new double[n];
+            for (int i = 0; i < n; i++) {
+                x[i] = nodeptr[i].x;
+                y[i] = nodeptr[i].y;
+            }
+            geo = new TSPlibReader.geo_table(x, y);
+        } else {
+            geo = null;
+        }
+        int size = (type == TSPlibReader.Distance_type.GEO) ? cache_size : 0;
+        cache_key = new long[size];
+        cache_value = new int[size];
+        cache_mask = size - 1;
+        Arrays.fill(cache_key, -1L);
+    };
+
+    @Override
+    public int get (int i, int j)
+    /*
+     * FUNCTION: get: obtiene la distancia entre dos nodos
+     * INPUT: indices i, j de los nodos
+     * OUTPUT: distancia entre los nodos i, j
+     * COMMENTS: todas las distancias son simetricas, el par (i,j) y (j,i)
+     *           comparten la misma entrada del cache
+     */
+    {
+        if (cache_mask < 0)
+            return compute(i, j);
+        long key = (i < j) ? ((long) i << 32) | j : ((long) j << 32) | i;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & cache_mask;
+        if (cache_key[slot] == key)
+            return cache_value[slot];
+        int d = compute(i, j);
+        cache_key[slot] = key;
+        cache_value[slot] = d;
+        return d;
+    };
+
+    private int compute (int i, int j)
+    /*
+     * FUNCTION: compute: calcula la distancia entre dos nodos
+     * INPUT: indices i, j de los nodos
+     * OUTPUT: distancia entre los nodos i, j
+     */
+    {
+        if (geo != null)
+            return geo.distance(i, j);
+        return TSPlibReader.compute_distance(type, xy[2 * i], xy[2 * i + 1],
+                                             xy[2 * j], xy[2 * j + 1]);
+    };
+}
@@ -0,0 +1,322 @@
+package algorithms;
+/* InstanceCache class
+ * Cache binario (.tspbin) de una instancia ya preprocesada: coordenadas,
+ * listas de vecinos y matriz de distancias. El archivo se identifica por
+ * el hash SHA-256 del archivo TSPlib y se lee mapeado en memoria, por lo
+ * que procesos concurrentes con la misma instancia comparten las paginas.
+ * El cache solo se usa si se indica un directorio (-cd); un archivo de
+ * cache que no corresponde a la instancia o esta danado se ignora y se
+ * vuelve a escribir
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ * Formato (orden de bytes nativo, secciones alineadas a 8 bytes):
+ *   cabecera (64 bytes): MAGIC, VERSION, hash (32 bytes), n, tipo de
+ *                        distancia, largo de listas de vecinos, flags,
+ *                        largo del nombre
+ *   nombre de la instancia (UTF-8)
+ *   coordenadas: 2n doubles (x, y de cada nodo)
+ *   listas de vecinos: n*nn enteros
+ *   numero original de cada nodo: n enteros (solo si flags & RENUMBERED)
+ *   matriz de distancias: n*n enteros (solo si flags & HAS_MATRIX), o
+ *                         n(n+1)/2 si ademas flags & TRIANGULAR. Cada
+ *                         distancia usa 2 bytes si flags & CHAR, 4 si no
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+public class InstanceCache {
+    /* identificacion del formato */
+    static final int MAGIC = 0x54535042;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int HASH_SIZE = 32;
+    /* flags */
+    static final int HAS_MATRIX = 1;
+    static final int TRIANGULAR = 2;
+    static final int CHAR = 4;
+    static final int RENUMBERED = 8;
+
+    /* contenido leido desde el cache */
+    String name;
+    int n;
+    TSPlibReader.Distance_type distance_type;
+    TSPlibReader.point[] nodeptr;
+    /* numero original de cada nodo, null si no fueron renumerados */
+    int[] original_id;
+    int[][] nn_list;
+    /* matriz mapeada, null si el cache no la contiene */
+    DistanceMatrix distance;
+
+    static String cache_file_name (String cache_dir, String tsp_file_name)
+    /*
+     * FUNCTION: cache_file_name: nombre del archivo de cache de una instancia
+     * INPUT: directorio del cache: cache_dir, ruta al archivo de la instancia
+     * OUTPUT: ruta al archivo .tspbin en cache_dir, con el nombre de la
+     *         instancia
+     * COMMENTS: dos instancias con el mismo nombre en distintos directorios
+     *           comparten el archivo; el hash evita usar el de la otra
+     */
+    {
+        String base = new File(tsp_file_name).getName();
+        if (base.endsWith(".tsp"))
+            base = base.substring(0, base.length() - 4);
+        return new File(cache_dir, base + ".tspbin").getPath();
+    };
+
+    static byte[] content_hash (String tsp_file_name) throws IOException
+    /*
+     * FUNCTION: content_hash: calcula el hash SHA-256 del archivo de la instancia
+     * INPUT: ruta al archivo de la instancia
+     * OUTPUT: hash del contenido (32 bytes)
+     */
+    {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 no disponible", e);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(tsp_file_name))) {
+            digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        return digest.digest();
+    };
+
+    static InstanceCache load (String cache_file_name, byte[] hash) throws IOException
+    /*
+     * FUNCTION: load: lee un archivo de cache mapeandolo en memoria
+     * INPUT: ruta al archivo de cache, hash de la instancia: hash
+     * OUTPUT: contenido del cache, null si no existe, no corresponde a la
+     *         instancia o su cabecera no es valida
+     */
+    {
+        if (!new File(cache_file_name).canRead())
+            return null;
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(cache_file_name))) {
+            if (channel.size() < HEADER_SIZE)
+                return null;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.nativeOrder());
+
+        /* cabecera */
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+            return null;
+        byte[] file_hash = new byte[HASH_SIZE];
+        buffer.position(8);
+        buffer.get(file_hash);
+        if (!Arrays.equals(file_hash, hash))
+            return null;
+
+        /* campos de la cabecera, un valor fuera de rango es un cache danado */
+        int n = buffer.getInt(40);
+        int type = buffer.getInt(44);
+        int nn = buffer.getInt(48);
+        int flags = buffer.getInt(52);
+        int name_length = buffer.getInt(56);
+        if (n < 2 || type < 0 || type >= TSPlibReader.Distance_type.values().length
+            || nn < 1 || nn >= n || (flags & ~(HAS_MATRIX | TRIANGULAR | CHAR | RENUMBERED)) != 0
+            || name_length < 0 || name_length > buffer.capacity())
+            return null;
+        if (file_size(n, nn, flags, name_length) != buffer.capacity())
+            return null;
+
+        InstanceCache cache = new InstanceCache();
+        cache.n = n;
+        cache.distance_type = TSPlibReader.Distance_type.values()[type];
+
+        byte[] name = new byte[name_length];
+        buffer.position(HEADER_SIZE);
+        buffer.get(name);
+        cache.name = new String(name, StandardCharsets.UTF_8);
+        long offset = align(HEADER_SIZE + name_length);
+
+        /* coordenadas */
+        cache.nodeptr = new TSPlibReader.point[n];
+        for (int i = 0; i < n; i++) {
+            cache.nodeptr[i] = new TSPlibReader.point();
+            cache.nodeptr[i].x = buffer.getDouble((int) offset);
+            cache.nodeptr[i].y = buffer.getDouble((int) offset + 8);
+            offset += 16;
+        }
+
+        /* listas de vecinos */
+        IntBuffer ints = slice(buffer, offset, 4L * n * nn).asIntBuffer();
+        cache.nn_list = new int[n][nn];
+        for (int i = 0; i < n; i++)
+            ints.get(cache.nn_list[i]);
+        offset = align(offset + 4L * n * nn);
+
+        /* renumeracion */
+        if ((flags & RENUMBERED) != 0) {
+            cache.original_id = new int[n];
+            slice(buffer, offset, 4L * n).asIntBuffer().get(cache.original_id);
+            offset = align(offset + 4L * n);
+        }
+
+        /* matriz de distancias: queda mapeada */
+        if ((flags & HAS_MATRIX) != 0) {
+            boolean triangular = (flags & TRIANGULAR) != 0;
+            int entry_bytes = ((flags & CHAR) != 0) ? 2 : 4;
+            long entries = triangular ? TriangularDistanceMatrix.packed_size(n) : (long) n * n;
+            cache.distance = new MappedDistanceMatrix(n, slice(buffer, offset, entries * entry_bytes),
+                                                      triangular, entry_bytes);
+        }
+        return cache;
+    };
+
+    static void store (String cache_file_name, byte[] hash, String name,
+                       TSPlibReader.Distance_type distance_type, TSPlibReader.point[] nodeptr,
+                       int[] original_id, int[][] nn_list, WritableDistanceMatrix distance) throws IOException
+    /*
+     * FUNCTION: store: escribe el archivo de cache de una instancia
+     * INPUT: ruta al archivo de cache, hash de la instancia: hash, nombre,
+     *        tipo de distancia, coordenadas, numero original de cada nodo
+     *        (null si no fueron renumerados), listas de vecinos y matriz de
+     *        distancias (null si no se guarda)
+     * OUTPUT: ninguno
+     * COMMENTS: se escribe en un archivo temporal que luego se renombra,
+     *           asi otro proceso nunca lee un cache incompleto
+     */
+    {
+        int n = nodeptr.length;
+        int nn = nn_list[0].length;
+        byte[] name_bytes = (name == null ? "" : name).getBytes(StandardCharsets.UTF_8);
+        long offset = align(HEADER_SIZE + name_bytes.length);
+        long coords = offset;
+        long lists = coords + 16L * n;
+        long ids = align(lists + 4L * n * nn);
+        long matrix = (original_id != null) ? align(ids + 4L * n) : ids;
+        boolean triangular = (distance != null) && distance.is_triangular();
+        int entry_bytes = (distance != null) ? distance.entry_bytes() : 4;
+        long entries = triangular ? TriangularDistanceMatrix.packed_size(n) : (long) n * n;
+        long size = (distance != null) ? matrix + entry_bytes * entries : matrix;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("instancia demasiado grande para el cache");
+
+        Path target = Paths.get(cache_file_name).toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), ".tspbin", ".tmp");
+        try {
+            try (RandomAccessFile file = new RandomAccessFile(tmp.toFile(), "rw");
+                 FileChannel channel = file.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.nativeOrder());
+
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.position(8);
+                buffer.put(hash, 0, HASH_SIZE);
+                buffer.putInt(40, n);
+                buffer.putInt(44, distance_type.ordinal());
+                buffer.putInt(48, nn);
+                int flags = 0;
+                if (distance != null) flags |= HAS_MATRIX;
+                if (triangular) flags |= TRIANGULAR;
+                if (entry_bytes == 2) flags |= CHAR;
+                if (original_id != null) flags |= RENUMBERED;
+                buffer.putInt(52, flags);
+                buffer.putInt(56, name_bytes.length);
+                buffer.position(HEADER_SIZE);
+                buffer.put(name_bytes);
+
+                for (int i = 0; i < n; i++) {
+                    buffer.putDouble((int) (coords + 16L * i), nodeptr[i].x);
+                    buffer.putDouble((int) (coords + 16L * i + 8), nodeptr[i].y);
+                }
+
+                IntBuffer ints = slice(buffer, lists, 4L * n * nn).asIntBuffer();
+                for (int i = 0; i < n; i++)
+                    ints.put(nn_list[i]);
+
+                if (original_id != null)
+                    slice(buffer, ids, 4L * n).asIntBuffer().put(original_id);
+
+                if (distance != null && entry_bytes == 4) {
+                    ints = slice(buffer, matrix, 4 * entries).asIntBuffer();
+                    int[] row = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        /* en la forma triangular la fila i empieza en la columna i */
+                        int from = triangular ? i : 0;
+                        for (int j = from; j < n; j++)
+                            row[j - from] = distance.get(i, j);
+                        ints.put(row, 0, n - from);
+                    }
+                } else if (distance != null) {
+                    CharBuffer chars = slice(buffer, matrix, 2 * entries).asCharBuffer();
+                    char[] row = new char[n];
+                    for (int i = 0; i < n; i++) {
+                        int from = triangular ? i : 0;
+                        for (int j = from; j < n; j++)
+                            row[j - from] = (char) distance.get(i, j);
+                        chars.put(row, 0, n - from);
+                    }
+                }
+                buffer.force();
+            }
+            /* el cache puede ser compartido por otros usuarios */
+            tmp.toFile().setReadable(true, false);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    };
+
+    private static long file_size (int n, int nn, int flags, int name_length)
+    /*
+     * FUNCTION: file_size: largo que debe tener un archivo de cache
+     * INPUT: campos de la cabecera: n, nn, flags, name_length
+     * OUTPUT: cantidad de bytes, igual que en store
+     */
+    {
+        long lists = align(HEADER_SIZE + name_length) + 16L * n;
+        long ids = align(lists + 4L * n * nn);
+        long matrix = ((flags & RENUMBERED) != 0) ? align(ids + 4L * n) : ids;
+        if ((flags & HAS_MATRIX) == 0)
+            return matrix;
+        long entries = ((flags & TRIANGULAR) != 0) ? TriangularDistanceMatrix.packed_size(n) : (long) n * n;
+        return matrix + (((flags & CHAR) != 0) ? 2 : 4) * entries;
+    };
+
+    private static ByteBuffer slice (ByteBuffer buffer, long offset, long bytes)
+    /*
+     * FUNCTION: slice: obtiene una vista de una seccion del archivo
+     * INPUT: buffer del archivo, posicion de inicio: offset, largo en bytes: bytes
+     * OUTPUT: vista de la seccion con el orden de bytes nativo
+     */
+    {
+        ByteBuffer view = buffer.duplicate();
+        view.position((int) offset);
+        view.limit((int) (offset + bytes));
+        return view.slice().order(ByteOrder.nativeOrder());
+    };
+
+    private static long align (long offset)
+    /*
+     * FUNCTION: align: alinea una posicion a 8 bytes
+     * INPUT: posicion: offset
+     * OUTPUT: posicion alineada
+     */
+    {
+        return (offset + 7) & ~7L;
+    };
+}
@@ -0,0 +1,37 @@
+package algorithms;
+/* IntDistanceMatrix class
+ * Matriz de distancias guardada en un unico arreglo contiguo
+ * de enteros (orden por filas)
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public class IntDistanceMatrix extends WritableDistanceMatrix {
+    /* distancias: la distancia de i a j esta en distance[i*n+j] */
+    private final int[] distance;
+
+    public IntDistanceMatrix (int _n)
+    /*
+     * FUNCTION: Constructor clase IntDistanceMatrix
+     * INPUT: numero de nodos: _n
+     * COMMENTS: las n*n distancias deben caber en un arreglo de Java
+     */
+    {
+        super(_n);
+        if ((long) _n * _n > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("matriz de " + _n + " nodos demasiado grande");
+        distance = new int[_n * _n];
+    };
+
+    @Override
+    public int get (int i, int j) {
+        return distance[i * n + j];
+    };
+
+    @Override
+    public void set (int i, int j, int value) {
+        distance[i * n + j] = value;
+    };
+}
@@ -0,0 +1,24 @@
+package algorithms;
+/* InvalidTourException class
+* Error lanzado por TSP.validate_tour cuando un tour revisado no es una
+* permutacion cerrada de los nodos. Quien crea tours puede capturarlo en
+* lugar de terminar la ejecucion
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+
+public class InvalidTourException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidTourException (String message)
+    /*
+     * FUNCTION: Constructor clase InvalidTourException
+     * INPUT: descripcion del error: message
+     */
+	{
+		super(message);
+	};
+}
@@ -0,0 +1,212 @@
+package algorithms;
+/* KDTree class
+ * Arbol k-d (k=2) sobre las coordenadas de los nodos, usado para
+ * obtener los vecinos mas cercanos sin calcular todas las distancias
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public class KDTree {
+    /* nodos por hoja, bajo este tamaño se busca por fuerza bruta */
+    private static final int BUCKET = 8;
+
+    /* coordenadas de los nodos */
+    private final double[] x;
+    private final double[] y;
+    /* permutacion de los nodos: cada rango [lo,hi) es un subarbol y
+       su mediana (lo+hi)/2 es la raiz */
+    private final int[] perm;
+    /* dimension de corte de cada raiz: 0 corta en x, 1 corta en y */
+    private final byte[] cut;
+
+    /* estado de la consulta actual: max-heap con los k mejores */
+    private int[] heap_node;
+    private double[] heap_d;
+    private int heap_size;
+    private int query;
+
+    public KDTree (double[] _x, double[] _y)
+    /*
+     * FUNCTION: Constructor clase KDTree
+     * INPUT: coordenadas x e y de los nodos: _x, _y
+     */
+    {
+        x = _x;
+        y = _y;
+        perm = new int[x.length];
+        cut = new byte[x.length];
+        for (int i = 0; i < perm.length; i++)
+            perm[i] = i;
+        build(0, perm.length);
+    };
+
+    private void build (int lo, int hi)
+    /*
+     * FUNCTION: build: construye el subarbol del rango [lo,hi)
+     * INPUT: limites del rango: lo, hi
+     * OUTPUT: ninguno
+     * COMMENTS: corta en la dimension de mayor extension
+     */
+    {
+        while (hi - lo > BUCKET) {
+            double minx = Double.MAX_VALUE, maxx = -Double.MAX_VALUE;
+            double miny = Double.MAX_VALUE, maxy = -Double.MAX_VALUE;
+            for (int i = lo; i < hi; i++) {
+                int p = perm[i];
+                if (x[p] < minx) minx = x[p];
+                if (x[p] > maxx) maxx = x[p];
+                if (y[p] < miny) miny = y[p];
+                if (y[p] > maxy) maxy = y[p];
+            }
+            int m = (lo + hi) >>> 1;
+            byte d = (byte) ((maxx - minx >= maxy - miny) ? 0 : 1);
+            select(lo, hi - 1, m, d == 0 ? x : y);
+            cut[m] = d;
+            build(lo, m);
+            lo = m + 1;
+        }
+    };
+
+    private void select (int left, int right, int k, double[] c)
+    /*
+     * FUNCTION: select: deja en perm[k] el nodo con la k-esima coordenada
+     *           y particiona el rango en torno a el (quickselect)
+     * INPUT: limites del rango: left, right, posicion buscada: k,
+     *        coordenada usada: c
+     * OUTPUT: ninguno
+     */
+    {
+        while (left < right) {
+            double pivot = c[perm[(left + right) >>> 1]];
+            int i = left, j = right;
+            while (i <= j) {
+                while (c[perm[i]] < pivot) i++;
+                while (c[perm[j]] > pivot) j--;
+                if (i <= j) {
+                    Utilities.swap(perm, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    };
+
+    public int[] nearest (int node, int k)
+    /*
+     * FUNCTION: nearest: obtiene los k vecinos mas cercanos de un nodo
+     * INPUT: nodo: node, cantidad de vecinos: k
+     * OUTPUT: arreglo con los k vecinos ordenados por distancia euclidiana
+     *         (el nodo no es vecino de si mismo)
+     */
+    {
+        if (heap_node == null || heap_node.length < k) {
+            heap_node = new int[k];
+            heap_d = new double[k];
+        }
+        heap_size = 0;
+        query = node;
+        search(0, perm.length, k);
+
+        /* vaciar el heap del mas lejano al mas cercano */
+        int[] result = new int[heap_size];
+        for (int i = heap_size - 1; i >= 0; i--) {
+            result[i] = heap_node[0];
+            pop();
+        }
+        return result;
+    };
+
+    private void search (int lo, int hi, int k)
+    /*
+     * FUNCTION: search: busca vecinos de query en el subarbol [lo,hi)
+     * INPUT: limites del rango: lo, hi, cantidad de vecinos: k
+     * OUTPUT: ninguno
+     */
+    {
+        double qx = x[query], qy = y[query];
+        if (hi - lo <= BUCKET) {
+            for (int i = lo; i < hi; i++)
+                offer(perm[i], k);
+            return;
+        }
+        int m = (lo + hi) >>> 1;
+        int p = perm[m];
+        double diff = (cut[m] == 0) ? qx - x[p] : qy - y[p];
+        offer(p, k);
+        if (diff < 0) {
+            search(lo, m, k);
+            if (heap_size < k || diff * diff < heap_d[0])
+                search(m + 1, hi, k);
+        } else {
+            search(m + 1, hi, k);
+            if (heap_size < k || diff * diff < heap_d[0])
+                search(lo, m, k);
+        }
+    };
+
+    private void offer (int p, int k)
+    /*
+     * FUNCTION: offer: agrega p a los k mejores si es mas cercano que el peor
+     * INPUT: nodo candidato: p, cantidad de vecinos: k
+     * OUTPUT: ninguno
+     */
+    {
+        if (p == query) return;
+        double dx = x[p] - x[query], dy = y[p] - y[query];
+        double d = dx * dx + dy * dy;
+        if (heap_size < k) {
+            /* subir el nuevo elemento */
+            int i = heap_size++;
+            while (i > 0 && heap_d[(i - 1) >> 1] < d) {
+                heap_node[i] = heap_node[(i - 1) >> 1];
+                heap_d[i] = heap_d[(i - 1) >> 1];
+                i = (i - 1) >> 1;
+            }
+            heap_node[i] = p;
+            heap_d[i] = d;
+        } else if (d < heap_d[0]) {
+            sift_down(p, d);
+        }
+    };
+
+    private void pop ()
+    /*
+     * FUNCTION: pop: elimina el elemento mas lejano del heap
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+        heap_size--;
+        if (heap_size > 0)
+            sift_down(heap_node[heap_size], heap_d[heap_size]);
+    };
+
+    private void sift_down (int p, double d)
+    /*
+     * FUNCTION: sift_down: reemplaza la raiz del heap por (p,d)
+     * INPUT: nodo: p, distancia al cuadrado: d
+     * OUTPUT: ninguno
+     */
+    {
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= heap_size) break;
+            if (c + 1 < heap_size && heap_d[c + 1] > heap_d[c]) c++;
+            if (heap_d[c] <= d) break;
+            heap_node[i] = heap_node[c];
+            heap_d[i] = heap_d[c];
+            i = c;
+        }
+        heap_node[i] = p;
+        heap_d[i] = d;
+    };
+}
@@ -0,0 +1,131 @@
+package algorithms;
+/* LongHashSet class
+* Conjunto de valores long con direccionamiento abierto (sondeo lineal)
+* sobre un arreglo primitivo, sin objetos por elemento. El 0 marca una
+* casilla vacia y se guarda aparte
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+import java.util.Arrays;
+
+public class LongHashSet {
+
+	/* casillas, largo potencia de 2 */
+	private long[] table;
+	private int mask;
+
+	/* cantidad de elementos, sin contar el 0 */
+	private int size;
+
+	/* el conjunto contiene el 0 */
+	private boolean has_zero;
+
+	public LongHashSet (int expected)
+    /*
+     * FUNCTION: Constructor clase LongHashSet
+     * INPUT: cantidad de elementos esperada: expected
+     * COMMENTS: la tabla se mantiene a lo mas medio llena
+     */
+	{
+		int capacity = 8;
+		while (capacity < 2 * expected)
+			capacity <<= 1;
+		table = new long[capacity];
+		mask = capacity - 1;
+		size = 0;
+		has_zero = false;
+	};
+
+	private int index (long value)
+    /*
+     * FUNCTION: index: casilla inicial de un valor
+     * INPUT: valor: value
+     * OUTPUT: casilla
+     */
+	{
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	};
+
+	public boolean contains (long value)
+    /*
+     * FUNCTION: contains: revisa si un valor esta en el conjunto
+     * INPUT: valor: value
+     * OUTPUT: true si el valor esta en el conjunto
+     */
+	{
+		if (value == 0)
+			return has_zero;
+		for (int i = index(value); ; i = (i + 1) & mask) {
+			if (table[i] == value) return true;
+			if (table[i] == 0) return false;
+		}
+	};
+
+	public boolean add (long value)
+    /*
+     * FUNCTION: add: agrega un valor al conjunto
+     * INPUT: valor: value
+     * OUTPUT: true si el valor no estaba en el conjunto
+     */
+	{
+		if (value == 0) {
+			boolean added = !has_zero;
+			has_zero = true;
+			return added;
+		}
+		int i = index(value);
+		while (table[i] != 0) {
+			if (table[i] == value) return false;
+			i = (i + 1) & mask;
+		}
+		table[i] = value;
+		if (++size * 2 > table.length)
+			rehash();
+		return true;
+	};
+
+	private void rehash ()
+    /*
+     * FUNCTION: rehash: duplica la tabla y reinserta los elementos
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+	{
+		long[] old = table;
+		table = new long[2 * old.length];
+		mask = table.length - 1;
+		for (long value : old) {
+			if (value == 0) continue;
+			int i = index(value);
+			while (table[i] != 0)
+				i = (i + 1) & mask;
+			table[i] = value;
+		}
+	};
+
+	public void clear ()
+    /*
+     * FUNCTION: clear: elimina todos los elementos
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     * COMMENTS: conserva la tabla
+     */
+	{
+		Arrays.fill(table, 0L);
+		size = 0;
+		has_zero = false;
+	};
+
+	public int size ()
+    /*
+     * FUNCTION: size: cantidad de elementos en el conjunto
+     * INPUT: ninguno
+     * OUTPUT: cantidad de elementos
+     */
+	{
+		return size + (has_zero ? 1 : 0);
+	};
+}
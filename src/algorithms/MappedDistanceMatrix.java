@@ -0,0 +1,62 @@
+package algorithms;
+/* MappedDistanceMatrix class
+ * Matriz de distancias (orden por filas, completa o triangular, de 32 o
+ * 16 bits) leida directamente desde un archivo mapeado en memoria (ver
+ * InstanceCache)
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+
+public class MappedDistanceMatrix extends DistanceMatrix {
+    /* distancias: la distancia de i a j esta en la posicion row_start[i]+j,
+       en la forma triangular solo para i <= j. Solo una de las dos vistas
+       existe, segun el ancho de las distancias */
+    private final IntBuffer int_distance;
+    private final CharBuffer char_distance;
+    private final int[] row_start;
+    private final boolean triangular;
+
+    public MappedDistanceMatrix (int _n, ByteBuffer _distance, boolean _triangular, int _entry_bytes)
+    /*
+     * FUNCTION: Constructor clase MappedDistanceMatrix
+     * INPUT: numero de nodos: _n, seccion de las distancias en el archivo: _distance,
+     *        forma triangular (ver TriangularDistanceMatrix): _triangular,
+     *        bytes por distancia (4 o 2): _entry_bytes
+     */
+    {
+        super(_n);
+        int_distance = (_entry_bytes == 4) ? _distance.asIntBuffer() : null;
+        char_distance = (_entry_bytes == 2) ? _distance.asCharBuffer() : null;
+        triangular = _triangular;
+        if (triangular) {
+            row_start = TriangularDistanceMatrix.row_starts(_n);
+        } else {
+            row_start = new int[_n];
+            for (int i = 0; i < _n; i++)
+                row_start[i] = i * _n;
+        }
+    };
+
+    @Override
+    public boolean is_triangular () {
+        return triangular;
+    };
+
+    @Override
+    public int entry_bytes () {
+        return (int_distance != null) ? 4 : 2;
+    };
+
+    @Override
+    public int get (int i, int j) {
+        int index = triangular ? row_start[Math.min(i, j)] + Math.max(i, j) : row_start[i] + j;
+        if (int_distance != null)
+            return int_distance.get(index);
+        return char_distance.get(index);
+    };
+}
@@ -0,0 +1,212 @@
+package algorithms;
+/* PartitionCrossover class
+* Espacio de trabajo del cruzamiento GPX (generalized partition
+* crossover). Los padres A y B se guardan como arreglos de sucesores y
+* predecesores. Al quitar las aristas comunes del grafo union de ambos
+* padres quedan componentes conexas donde los padres difieren; una
+* componente de la que salen exactamente dos aristas comunes es
+* recorrida por cada padre como un solo camino con los mismos extremos,
+* por lo que el hijo puede tomar en ella el camino mas corto de los dos
+* sin romper el tour. Las componentes que no cumplen esto se toman del
+* padre base. Todo el proceso es O(n) y el costo del hijo es el del base
+* mas la diferencia de cada componente cambiada
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+
+public class PartitionCrossover {
+
+	/* instancia */
+	private int n;
+	private DistanceMatrix distance;
+
+	/* sucesor y predecesor de cada nodo en los padres A y B */
+	private int[] succ_a, pred_a, succ_b, pred_b;
+
+	/* primer nodo de cada padre */
+	private int first_a, first_b;
+
+	/* componente de cada nodo (-1 si sus aristas son comunes) y pila
+	   para recorrerlas */
+	private int[] comp;
+	private int[] stack;
+	private int ncomp;
+
+	/* por componente: costo de las aristas de A y de B que no son
+	   comunes, aristas comunes que salen de ella y si se toma del
+	   otro padre en el hijo actual */
+	private long[] cost_a, cost_b;
+	private int[] exits;
+	private boolean[] other;
+
+	public PartitionCrossover (TSP problem)
+    /*
+     * FUNCTION: Constructor clase PartitionCrossover
+     * INPUT: instancia del TSP: problem
+     */
+	{
+		n = problem.getSize();
+		distance = problem.get_distance_matrix();
+		succ_a = new int[n];
+		pred_a = new int[n];
+		succ_b = new int[n];
+		pred_b = new int[n];
+		comp = new int[n];
+		stack = new int[n];
+		cost_a = new long[n];
+		cost_b = new long[n];
+		exits = new int[n];
+		other = new boolean[n];
+	};
+
+	public int prepare (int[] ta, int offa, int[] tb, int offb)
+    /*
+     * FUNCTION: prepare: particiona el grafo union de dos padres
+     * INPUT: tours de los padres A y B guardados desde ta[offa] y tb[offb]
+     *        (n+1 nodos cada uno)
+     * OUTPUT: cantidad de componentes que se pueden recombinar
+     * COMMENTS: los padres no se usan despues, pueden modificarse antes
+     *           de child
+     */
+	{
+		int u, v, w, top;
+
+		for (int i = 0; i < n; i++) {
+			u = ta[offa + i];
+			v = ta[offa + i + 1];
+			succ_a[u] = v;
+			pred_a[v] = u;
+			u = tb[offb + i];
+			v = tb[offb + i + 1];
+			succ_b[u] = v;
+			pred_b[v] = u;
+		}
+		first_a = ta[offa];
+		first_b = tb[offb];
+
+		/* componentes conexas de las aristas no comunes */
+		for (v = 0; v < n; v++)
+			comp[v] = -1;
+		ncomp = 0;
+		for (int s = 0; s < n; s++) {
+			if (comp[s] >= 0 || (in_b(s, succ_a[s]) && in_b(s, pred_a[s])))
+				continue;
+			comp[s] = ncomp;
+			stack[0] = s;
+			top = 1;
+			while (top > 0) {
+				v = stack[--top];
+				for (int k = 0; k < 4; k++) {
+					if (k == 0) {
+						w = succ_a[v];
+						if (in_b(v, w)) continue;
+					} else if (k == 1) {
+						w = pred_a[v];
+						if (in_b(v, w)) continue;
+					} else if (k == 2) {
+						w = succ_b[v];
+						if (in_a(v, w)) continue;
+					} else {
+						w = pred_b[v];
+						if (in_a(v, w)) continue;
+					}
+					if (comp[w] < 0) {
+						comp[w] = ncomp;
+						stack[top++] = w;
+					}
+				}
+			}
+			cost_a[ncomp] = 0;
+			cost_b[ncomp] = 0;
+			exits[ncomp] = 0;
+			ncomp++;
+		}
+
+		/* costo de cada padre dentro de cada componente y aristas
+		   comunes que las conectan con el resto del tour */
+		for (v = 0; v < n; v++) {
+			w = succ_a[v];
+			if (!in_b(v, w)) {
+				cost_a[comp[v]] += distance.get(v, w);
+			} else if (comp[v] != comp[w]) {
+				if (comp[v] >= 0) exits[comp[v]]++;
+				if (comp[w] >= 0) exits[comp[w]]++;
+			}
+			w = succ_b[v];
+			if (!in_a(v, w))
+				cost_b[comp[v]] += distance.get(v, w);
+		}
+
+		int feasible = 0;
+		for (int c = 0; c < ncomp; c++)
+			if (exits[c] == 2) feasible++;
+		return feasible;
+	};
+
+	public long child (boolean base_is_a, long base_cost, int[] out, int ooff)
+    /*
+     * FUNCTION: child: construye el hijo de un padre base
+     * INPUT: si el base es A: base_is_a, costo del base: base_cost,
+     *        arreglo donde escribir el hijo desde out[ooff] (n+1 nodos)
+     * OUTPUT: costo del hijo
+     * COMMENTS: en cada componente recombinable se toma el camino del
+     *           otro padre si es mas corto; el hijo comienza en el primer
+     *           nodo del base y sigue su sentido
+     */
+	{
+		long cost = base_cost;
+		long[] cb = base_is_a ? cost_a : cost_b;
+		long[] co = base_is_a ? cost_b : cost_a;
+		int[] sb = base_is_a ? succ_a : succ_b;
+		int[] pb = base_is_a ? pred_a : pred_b;
+		int[] so = base_is_a ? succ_b : succ_a;
+		int[] po = base_is_a ? pred_b : pred_a;
+		int u, c, prev, next;
+
+		for (c = 0; c < ncomp; c++) {
+			other[c] = exits[c] == 2 && co[c] < cb[c];
+			if (other[c])
+				cost += co[c] - cb[c];
+		}
+
+		/* recorrer el hijo: cada nodo tiene los vecinos del padre del
+		   que se toma su componente */
+		u = base_is_a ? first_a : first_b;
+		prev = -1;
+		for (int i = 0; i < n; i++) {
+			out[ooff + i] = u;
+			c = comp[u];
+			if (c >= 0 && other[c]) {
+				next = (so[u] != prev) ? so[u] : po[u];
+			} else {
+				next = (sb[u] != prev) ? sb[u] : pb[u];
+			}
+			prev = u;
+			u = next;
+		}
+		out[ooff + n] = out[ooff];
+		return cost;
+	};
+
+	private boolean in_a (int u, int v)
+    /*
+     * FUNCTION: in_a: revisa si (u,v) es una arista del padre A
+     * INPUT: nodos: u, v
+     * OUTPUT: true si u y v son vecinos en A
+     */
+	{
+		return succ_a[u] == v || pred_a[u] == v;
+	};
+
+	private boolean in_b (int u, int v)
+    /*
+     * FUNCTION: in_b: revisa si (u,v) es una arista del padre B
+     * INPUT: nodos: u, v
+     * OUTPUT: true si u y v son vecinos en B
+     */
+	{
+		return succ_b[u] == v || pred_b[u] == v;
+	};
+}
@@ -7,6 +7,7 @@ package algorithms;
 * @version 1.0
 *
 */
+import java.util.Arrays;
 import java.util.Vector;
 
 
@@ -31,34 +32,97 @@ public class Population {
 	 *   O1X: (order 1 crossover) 
 	 *   OPX: (one point crossover) se realiza cruzamiento en un punto 
 	 *        utilizando una lista de referencia 
+	 *   ERX: (edge recombination crossover) construye los hijos con las
+	 *        aristas de los padres
+	 *   EAX: (edge assembly crossover) combina un padre con ciclos de
+	 *        aristas alternadas de ambos padres y une los subtours
+	 *   GPX: (generalized partition crossover) toma en cada parte donde
+	 *        los padres difieren el camino mas corto de los dos
 	 */
 	{
 	  PMX,
 	  OX, 
-	  OPX
+	  OPX,
+	  ERX,
+	  EAX,
+	  GPX
 	};
 	
 	enum MutationType
 	/* Tipos de mutacion disponibles
 	 *   SWAP: mutacion que aplica un movimiento swap aleatoriamente
 	 *   TWO_OPT: mutacion que aplica un movimiento 2-opt aleatoriamente
+	 *   OR_OPT: mutacion que mueve un segmento de 1 a 3 nodos aleatoriamente
+	 *   OR2OPT: como OR_OPT pero inserta el segmento invertido
 	 */
     {
 	    SWAP,
-	    TWO_OPT
+	    TWO_OPT,
+	    OR_OPT,
+	    OR2OPT
 	};  
    
+    /* rechazar hijos con las mismas aristas que un individuo de la
+       poblacion o que otro hijo (ver removeDuplicates) */
+    static boolean reject_duplicates = false;
+    
+    /* aplicar busqueda local 2-opt a los hijos (ver localSearch) */
+    static boolean local_search = false;
+   
     /* instancia del tsp */
 	private static TSP problem;
 	
-	/* poblacion */
-	private Vector <Tour> pop;
+	/* tours y costos de los individuos (ver TourArena) */
+	private TourArena arena;
+	
+	/* poblacion: slot[0..count) son las filas de arena de los individuos,
+	   en orden, y slot[count..capacity) las filas libres. slot es siempre
+	   una permutacion de las filas, por lo que agregar un individuo toma
+	   la siguiente fila libre y eliminarlo la devuelve al final */
+	private int[] slot;
+	private int count;
 	
 	/* tamaño poblacion */
 	private int pop_size;
 	
 	/* indice del mejor_individuo */
 	private int best_index;
+	
+	/* arreglos auxiliares reutilizados por la seleccion y el cruzamiento,
+	   crecen segun se necesita */
+	private int[] sel = new int[0];
+	private int[] pair = new int[2];
+	private int[] elegible = new int[0];
+	private int[] candidates = new int[0];
+	private int[] ids = new int[0];
+	private int[] selected = new int[0];
+	private int[] mark = new int[0];
+	private int[] aux_slot = new int[0];
+	private int stamp = 0;
+	private long[] fx = new long[0];
+	private int[] ix = new int[0];
+	private double[] roulette = new double[0];
+	private int[] pos1 = new int[0];
+	private int[] pos2 = new int[0];
+	/* marcas de los nodos de cada segmento en OX: in1[v] == node_stamp
+	   si v esta en el segmento del primer padre */
+	private int[] in1 = new int[0];
+	private int[] in2 = new int[0];
+	private int node_stamp = 0;
+	/* representacion ordinal de padres e hijos en OPX y arboles de
+	   Fenwick de los nodos que quedan en la lista de referencia */
+	private int[] rp1 = new int[0];
+	private int[] rp2 = new int[0];
+	private int[] fenwick1 = new int[0];
+	private int[] fenwick2 = new int[0];
+	/* tabla de aristas de ERX, se crea al primer uso */
+	private EdgeRecombination erx = null;
+	/* ciclos AB y espacio de trabajo de EAX, se crea al primer uso */
+	private EdgeAssembly eax = null;
+	/* particion de los padres de GPX, se crea al primer uso */
+	private PartitionCrossover gpx = null;
+	/* tour donde se aplica la busqueda local, se crea al primer uso */
+	private Tour ls_tour = null;
 
     /******************************************/
     /*              Constructores             */ 
@@ -69,16 +133,27 @@ public class Population {
      * FUNCTION: Constructor clase Population
      * INPUT: tamaño poblacion: pop_size, instancia
      *        del TSP: _problem
+     */
+	{
+		this(_pop_size, _pop_size, _problem);
+	};
+	
+	public Population (int _pop_size, int _capacity, TSP _problem)
+    /*
+     * FUNCTION: Constructor clase Population
+     * INPUT: tamaño poblacion: pop_size, cantidad de individuos para
+     *        los que se reserva memoria: _capacity, instancia
+     *        del TSP: _problem
      */
 	{
 		problem = _problem;
 		pop_size = _pop_size;
-		pop = new Vector<Tour> ();
+		allocate(Math.max(_pop_size, _capacity));
 		best_index = -1;
 		
 		/* Agregar individuos a la poblacion*/
 		for (int i=0; i<pop_size; i++) {
-		    pop.add(new Tour(Tour.InitialSolution.RANDOM, problem));
+		    arena.set(append(), problem.random_tour());
 		}
 		
 		/* Identificar el mejor individuo en la poblacion*/
@@ -92,10 +167,22 @@ public class Population {
 	 * COMMENTS: este constructor no inicializa la poblacion
 	 *           por lo tanto esta tiene tamaño 0
 	 */
+	{
+			this(_problem, 0);
+	};
+	
+	public Population (TSP _problem, int _capacity) 
+	/*
+	 * FUNCTION: Constructor clase Population
+	 * INPUT: instancia del TSP: _problem, cantidad de individuos para
+	 *        los que se reserva memoria: _capacity
+	 * COMMENTS: este constructor no inicializa la poblacion
+	 *           por lo tanto esta tiene tamaño 0
+	 */
 	{
 			problem = _problem;
 			pop_size = 0;
-			pop = new Vector<Tour> ();
+			allocate(_capacity);
 			best_index = -1;
 	};
 	
@@ -109,18 +196,12 @@ public class Population {
 	{
 		problem = _problem;
 		pop_size = _pop.size();
-		pop = new Vector<Tour> ();
-		pop.addAll(_pop);
-		best_index = -1;
+		allocate(pop_size);
 		for (int i=0; i< pop_size;i++) {
-			if (best_index == -1) {
-		        best_index = i;		
-		    } else {
-		    	if (pop.get(i).getCost() < pop.get(best_index).getCost()) {
-		    		best_index = i;
-		    	}
-		    }
+			arena.set(append(), _pop.get(i));
 		}
+		best_index = -1;
+		searchBest();
 	};
 	
 	public Population (Population _population) 
@@ -129,38 +210,143 @@ public class Population {
      */
 	{
 		problem = _population.problem;
-		pop_size = _population.pop_size;
-		pop = new Vector<Tour> ();
-		if (pop_size > 0) {
-			pop.addAll(_population.pop);
-			best_index = _population.best_index;
-		} else {
-			best_index = -1;
-		}
+		allocate(_population.arena.capacity);
+		Copy(_population);
+	};
+	
+	private void allocate (int capacity)
+	/*
+	 * FUNCTION: allocate: crea el almacen de tours vacio
+	 * INPUT: cantidad de individuos a reservar: capacity
+	 * OUTPUT: ninguno
+	 */
+	{
+		arena = new TourArena(capacity, problem);
+		slot = new int[capacity];
+		for (int r=0; r<capacity; r++) slot[r] = r;
+		count = 0;
 	};
 	
     /******************************************/
     /*         Manejo de poblacion            */ 
     /******************************************/
 	
+	private int append ()
+	/*
+	 * FUNCTION: append: agrega una fila al final de pop
+	 * INPUT: ninguno
+	 * OUTPUT: fila de arena asignada al nuevo individuo
+	 * COMMENTS: no modifica pop_size, el contenido de la fila lo
+	 *           escribe quien llama
+	 */
+	{
+		if (count == arena.capacity) {
+			int old = arena.capacity;
+			arena.grow(count + 1);
+			slot = Arrays.copyOf(slot, arena.capacity);
+			for (int r=old; r<arena.capacity; r++) slot[r] = r;
+		}
+		return slot[count++];
+	};
+	
+	private void remove (int index)
+	/*
+	 * FUNCTION: remove: elimina un individuo de pop
+	 * INPUT: indice del individuo: index
+	 * OUTPUT: ninguno
+	 * COMMENTS: igual que Vector.remove, los siguientes se desplazan
+	 *           una posicion. La fila queda libre pero no se borra
+	 */
+	{
+		int row = slot[index];
+		System.arraycopy(slot, index+1, slot, index, count-index-1);
+		slot[--count] = row;
+	};
+	
+	private void keep (int[] rows, int size)
+	/*
+	 * FUNCTION: keep: deja en pop solo las filas indicadas, en ese orden
+	 * INPUT: filas a conservar: rows, cantidad: size
+	 * OUTPUT: ninguno
+	 * COMMENTS: las demas filas quedan libres
+	 */
+	{
+		int k = size;
+		mark = fit(mark, arena.capacity);
+		aux_slot = fit(aux_slot, arena.capacity);
+		stamp++;
+		for (int i=0; i<size; i++) {
+			mark[rows[i]] = stamp;
+			aux_slot[i] = rows[i];
+		}
+		for (int i=0; i<arena.capacity; i++) {
+			if (mark[slot[i]] != stamp) aux_slot[k++] = slot[i];
+		}
+		int[] t = slot;
+		slot = aux_slot;
+		aux_slot = t;
+		count = size;
+	};
+	
+	private static int[] fit (int[] a, int size)
+	/*
+	 * FUNCTION: fit: asegura el tamaño de un arreglo auxiliar
+	 * INPUT: arreglo: a, tamaño minimo: size
+	 * OUTPUT: a si tiene el tamaño suficiente, si no uno nuevo
+	 */
+	{
+		return (a.length >= size) ? a : new int[Math.max(size, 2 * a.length)];
+	};
+	
 	public void Copy (Population _population) 
     /* 
      * FUNCTION: Copy: copia el contenido de una poblacion
      * INPUT: instancia de poblacion
      * OUTPUT: ninguno
+     * COMMENTS: copia las filas de los individuos, las poblaciones
+     *           no comparten soluciones
      */
 	{
 		problem = _population.problem;
 		pop_size = _population.pop_size;
-		pop.removeAllElements();
+		count = 0;
 		if ( pop_size > 0) {
-			pop.addAll(_population.pop);
+			for (int i=0; i<_population.count; i++) {
+				arena.copy(append(), _population.arena, _population.slot[i]);
+			}
 			best_index = _population.best_index;
 		} else {
 			best_index = -1;
 		}
 	};
 	
+	public void exchange (Population _population) 
+    /* 
+     * FUNCTION: exchange: intercambia el contenido de dos poblaciones
+     * INPUT: instancia de poblacion
+     * OUTPUT: ninguno
+     * COMMENTS: intercambia los almacenes de tours sin copiar. El
+     *           algoritmo genetico lo usa en lugar de Copy para reutilizar
+     *           la poblacion anterior como almacen de los proximos hijos
+     */
+	{
+		TourArena a = arena;
+		arena = _population.arena;
+		_population.arena = a;
+		int[] s = slot;
+		slot = _population.slot;
+		_population.slot = s;
+		int t = count;
+		count = _population.count;
+		_population.count = t;
+		t = pop_size;
+		pop_size = _population.pop_size;
+		_population.pop_size = t;
+		t = best_index;
+		best_index = _population.best_index;
+		_population.best_index = t;
+	};
+	
 	public void start () 	
 	/*
 	 * FUNCTION: start: inicializa la poblacion
@@ -169,11 +355,11 @@ public class Population {
 	 */
 	{
 
-		pop.removeAllElements();
+		count = 0;
 		/* Agregar individuos a la poblacion*/
 		for (int i=0; i<pop_size; i++) {
-		    pop.add(new Tour(Tour.InitialSolution.RANDOM, problem));
-		    pop.get(i).print();
+		    arena.set(append(), problem.random_tour());
+		    arena.print(slot[i]);
 		}
 		
 		/* Identificar el mejor individuo en la poblacion*/
@@ -187,7 +373,7 @@ public class Population {
 	 * OUTPUT: ninguno
 	 */
 	{
-		pop.add(individual);
+		arena.set(append(), individual);
 		pop_size++;
 		searchBest();
 	};
@@ -200,7 +386,7 @@ public class Population {
 	 */
 	{
 		for (int i=0; i< individuals.size(); i++) {
-		  pop.add(individuals.get(i));
+		  arena.set(append(), individuals.get(i));
 		  pop_size++;
 		}
 		
@@ -215,7 +401,9 @@ public class Population {
      */
     {
     	pop_size = pop_size + p.pop_size;
-    	pop.addAll(p.pop);
+    	for (int i=0; i<p.count; i++) {
+    		arena.copy(append(), p.arena, p.slot[i]);
+    	}
     	searchBest();
     };
 	
@@ -224,10 +412,11 @@ public class Population {
 	 * FUNCTION: clear: elimina todos los indivuos de una poblacion
 	 * INPUT: ninguno
 	 * OUTPUT: ninguno
+	 * COMMENTS: las filas quedan reservadas para los proximos individuos
 	 */
 	{
 
-		pop.removeAllElements();
+		count = 0;
 		pop_size = 0;
 		best_index = -1;
 	};
@@ -245,13 +434,54 @@ public class Population {
 			if (best_index == -1) {
 				best_index = i;		
 			} else {
-				if (pop.get(i).getCost() < pop.get(best_index).getCost()) {
+				if (arena.cost[slot[i]] < arena.cost[slot[best_index]]) {
 					best_index = i;
 				}
 			}
 		}
 	};
 	
+	public void addHashes (LongHashSet seen)
+	/*
+	 * FUNCTION: addHashes: agrega las huellas de los individuos a un conjunto
+	 * INPUT: conjunto de huellas: seen
+	 * OUTPUT: ninguno
+	 * COMMENTS: requiere TourHash.enabled
+     */
+	{
+		for (int i=0; i<count; i++) {
+			seen.add(arena.hash[slot[i]]);
+		}
+	};
+	
+	public int removeDuplicates (int from, LongHashSet seen)
+	/*
+	 * FUNCTION: removeDuplicates: elimina los individuos cuya huella ya
+	 *           esta en un conjunto
+	 * INPUT: primer individuo a revisar: from, conjunto de huellas: seen
+	 * OUTPUT: cantidad de individuos eliminados
+	 * COMMENTS: las huellas de los individuos que quedan se agregan al
+	 *           conjunto, por lo que tambien se eliminan repetidos entre
+	 *           ellos. Requiere TourHash.enabled
+     */
+	{
+		int removed = 0;
+		for (int i=from; i<count; ) {
+			if (seen.add(arena.hash[slot[i]])) {
+				i++;
+			} else {
+				remove(i);
+				pop_size--;
+				removed++;
+			}
+		}
+		if (removed > 0) {
+			best_index = -1;
+			searchBest();
+		}
+		return removed;
+	};
+	
 	public void orderPopulation ()
 	/*
 	 * FUNCTION: orderPopulation: ordena la poblacion 
@@ -260,27 +490,23 @@ public class Population {
 	 * COMMENTS: orden de mejor a peor fitness
      */
 	{
-		long[] fx = new long[pop_size];
-    	int[] ix = new int[pop_size];
-    	Vector<Tour> ordered = new Vector<Tour> ();
+		if (fx.length < pop_size) fx = new long[pop_size];
+    	ix = fit(ix, pop_size);
+    	selected = fit(selected, pop_size);
     	
     	/* ordenar la poblacion */
     	for (int i=0; i<pop_size; i++) {
-    		fx[i] = pop.get(i).getCost();
+    		fx[i] = arena.cost[slot[i]];
     		ix[i] = i;
     	}
-    	Utilities.sort2(fx, ix);
+    	Utilities.sort2(fx, ix, 0, pop_size-1);
     	
-    	/* seleccionar los mejores */
+    	/* reordenar las filas de los individuos */
     	for (int i=0; i<pop_size; i++) {
-    		ordered.add(pop.get(ix[i]));
+    		selected[i] = slot[ix[i]];
     	}
-    	
-    	/* eliminar todos los individuos */
-    	pop.removeAllElements();
-    	
-    	/* añadir seleccionados */
-    	pop.addAll(ordered);
+    	System.arraycopy(selected, 0, slot, 0, pop_size);
+    	count = pop_size;
     	
     	/* actualizar poblacion */
     	best_index = -1;
@@ -299,9 +525,9 @@ public class Population {
 	 */
 	{
 
-		for (int i=0; i<pop.size(); i++) {
+		for (int i=0; i<count; i++) {
 			System.out.println("Individuo " +i +" ");
-			pop.get(i).print();
+			arena.print(slot[i]);
 		}
 		System.out.println("");
 	};
@@ -315,7 +541,7 @@ public class Population {
 	{
 
 		System.out.println("Individuo " + index +" ");
-		pop.get(index).print();
+		arena.print(slot[index]);
 		System.out.println("");
 	};
 	
@@ -328,9 +554,9 @@ public class Population {
 	 */
 	{
 
-		for (int i=0; i<pop.size(); i++) {
+		for (int i=0; i<count; i++) {
 			System.out.print("Individuo " +i +": ");
-			pop.get(i).lprint();
+			arena.lprint(slot[i]);
 		}
 		System.out.println("");
 	};
@@ -345,7 +571,7 @@ public class Population {
 	{
 
 		System.out.print("Individuo " + index +": ");
-		pop.get(index).lprint();
+		arena.lprint(slot[index]);
 	};
 	
 	public void printAllFitness () 
@@ -357,8 +583,8 @@ public class Population {
 	{
 
 		System.out.println("Poblacion: ");
-		for (int i=0; i<pop.size(); i++) {
-			System.out.println("  individuo 1:" + pop.get(i).getCost());
+		for (int i=0; i<count; i++) {
+			System.out.println("  individuo 1:" + arena.cost[slot[i]]);
 		}
 	};
 	
@@ -373,31 +599,39 @@ public class Population {
 	 * OUTPUT: Fitness del individuo index
      */
 	{
-		return(pop.get(index).getCost());
+		return(arena.cost[slot[index]]);
+	};
+	
+	public long getBestFitness () 
+	/*
+	 * FUNCTION: getBestFitness: retorna el fitness del mejor individuo
+	 * INPUT: ninguno
+	 * OUTPUT: Fitness del mejor individuo
+     */
+	{
+		return(arena.cost[slot[best_index]]);
 	};
 	
 	public Tour getBestTour () 
 	/*
 	 * FUNCTION: getBestTour: retorna el mejor individuo
 	 * INPUT: ninguno
-	 * OUTPUT: mejor Tour en la poblacion
+	 * OUTPUT: copia del mejor Tour en la poblacion
+	 * COMMENTS: crea un objeto nuevo, para no crear objetos usar copyBest
      */
 	{
-		return(pop.get(best_index));
+		return(arena.get(slot[best_index]));
 	};
 	
-	private Vector<Tour> getIndividuals (int[] index) 
+	public void copyBest (Tour tour) 
 	/*
-	 * FUNCTION: getIndividuals : retorna individuos
-	 * INPUT: index de un individuos en la poblacion: index
-	 * OUTPUT: vector de individuos seleccionados
+	 * FUNCTION: copyBest: copia el mejor individuo en un tour
+	 * INPUT: tour donde se copia el mejor individuo: tour
+	 * OUTPUT: ninguno
      */
 	{
-		Vector <Tour> selected = new Vector<Tour> ();
-		for (int i=0; i<index.length; i++) {
-			selected.add(pop.get(index[i]));
-		}
-		return (selected);
+		int row = slot[best_index];
+		tour.Copy(arena.tours, arena.offset(row), arena.cost[row], arena.hash[row]);
 	};
 	
     public int size () 
@@ -411,39 +645,41 @@ public class Population {
 		return (pop_size);
 	};
 	
- 	private double[] generateRouletteWheel(Vector<Tour> candidates) 
+ 	private double[] generateRouletteWheel(int[] rows, int size) 
 	/*
 	 * FUNCTION: generateRouletteWheel: retorna la torta de probabilidades
 	 *           asociadas al fitness de las soluciones entregadas
-	 * INPUT: vector de soluciones a ser seleccionadas: candidates
+	 * INPUT: filas de las soluciones a ser seleccionadas: rows, 
+	 *        cantidad de soluciones: size
 	 * OUTPUT: arreglo de double que posee las probabilidad acumulada
 	 *         para la seleecion de soluciones
-	 * COMMENTS: seleccion propocional al fitness
+	 * COMMENTS: seleccion propocional al fitness. El arreglo se reutiliza
+	 *           entre llamadas
      */
  	/* Ruleta para minimizacion:
  	 * p(x1) = (min + max - f(x1)) / sum(f(x))
  	 */
  	{
 		double sum = 0.0;
-		long min = candidates.get(0).getCost();
-		long max = candidates.get(0).getCost();
-		double[] roulette = new double[candidates.size()];
+		long min = arena.cost[rows[0]];
+		long max = arena.cost[rows[0]];
+		if (roulette.length < size) roulette = new double[Math.max(size, 2 * roulette.length)];
 		
 		/* Encontrar el minimo y el máximo en los individuos */
-		for (int i=1; i<candidates.size(); i++) {
-			if (candidates.get(i).getCost() < min) 
-				min = candidates.get(i).getCost();
-			if (candidates.get(i).getCost() > max) 
-				max = candidates.get(i).getCost();
+		for (int i=1; i<size; i++) {
+			if (arena.cost[rows[i]] < min) 
+				min = arena.cost[rows[i]];
+			if (arena.cost[rows[i]] > max) 
+				max = arena.cost[rows[i]];
 		}
 		
-		for (int i=0; i<candidates.size(); i++) {
-			roulette[i] = (double) (min + max - candidates.get(i).getCost());
+		for (int i=0; i<size; i++) {
+			roulette[i] = (double) (min + max - arena.cost[rows[i]]);
 			sum = sum + roulette[i];
 		}
 		
 		roulette[0] = roulette[0]/sum;
-		for (int i=1; i<candidates.size(); i++) {
+		for (int i=1; i<size; i++) {
 			roulette[i] = roulette[i] / sum;
 			roulette[i] = roulette[i-1] + roulette[i];
 		}
@@ -464,7 +700,7 @@ public class Population {
      */
     {
     	double r; 
-		for (int i=0; i<pop.size(); i++) {
+		for (int i=0; i<count; i++) {
 			if (test) {
 				r = 0.5;
 			} else {
@@ -473,9 +709,9 @@ public class Population {
 			/* Mutacion solo si la probabilidad lo indica */
 			if (mut_probability > r) {
 				if (test) {
-					pop.get(i).swap(2,8);
+					arena.swap(slot[i],2,8);
 				} else {
-					pop.get(i).random_swap();
+					arena.random_swap(slot[i]);
 				}
 			}
 		}
@@ -491,7 +727,35 @@ public class Population {
      */
     {
     	double r;
-		for (int i=0; i<pop.size(); i++) {
+		for (int i=0; i<count; i++) {
+			if (test) {
+				r = 0.5;
+			} else {
+				r = Utilities.ran01();
+			}
+			/* Mutacion solo si la probabilidad lo indica */
+			if (mut_probability > r) {
+				if (test) {
+				  arena.two_opt(slot[i],2,8);	
+				} else {
+				  arena.random_two_opt(slot[i]);
+				}
+			}
+		}  	
+    };
+    
+    private void OrOptMutation (Double mut_probability, boolean test, boolean reversed) 
+	/*
+	 * FUNCTION: OrOptMutation: aplica or-opt (u or2opt) aleatoriamente a 
+	 *           toda la poblacion
+	 * INPUT: probabilidad de mutacion: mut_probability, si el segmento
+	 *        se inserta invertido: reversed
+	 * OUTPUT: ninguno
+	 * COMMENTS: 
+     */
+    {
+    	double r;
+		for (int i=0; i<count; i++) {
 			if (test) {
 				r = 0.5;
 			} else {
@@ -500,9 +764,9 @@ public class Population {
 			/* Mutacion solo si la probabilidad lo indica */
 			if (mut_probability > r) {
 				if (test) {
-				  pop.get(i).twoOptSwap(2,8);	
+				  arena.or_opt(slot[i],2,3,8,reversed);	
 				} else {
-				  pop.get(i).random_two_opt();
+				  arena.random_or_opt(slot[i],reversed);
 				}
 			}
 		}  	
@@ -521,225 +785,396 @@ public class Population {
     		SwapMutation(mut_probability, test);
     	} else if (mtype == MutationType.TWO_OPT){
     		TwoOptMutation (mut_probability, test); 
+    	} else if (mtype == MutationType.OR_OPT){
+    		OrOptMutation (mut_probability, test, false); 
+    	} else if (mtype == MutationType.OR2OPT){
+    		OrOptMutation (mut_probability, test, true); 
     	} else {
     		SwapMutation(mut_probability, test);
     	}
     	searchBest();
     };
+    
+    public void localSearch ()
+	/*
+	 * FUNCTION: localSearch: aplica busqueda local 2-opt a toda la
+	 *           poblacion
+	 * INPUT: ninguno
+	 * OUTPUT: ninguno
+	 * COMMENTS: cada individuo se copia a un Tour reutilizado, se mejora
+	 *           con Tour.twoOptLocalSearch y se copia de vuelta, donde se
+	 *           revisa segun TSP.validation (ver TourArena.accept); en
+	 *           instancias grandes los movimientos usan la lista de dos
+	 *           niveles (ver Tour.list_threshold)
+     */
+    {
+		for (int i=0; i<count; i++) {
+			int row = slot[i];
+			if (ls_tour == null) {
+				ls_tour = arena.get(row);
+			} else {
+				ls_tour.Copy(arena.tours, arena.offset(row), arena.cost[row], arena.hash[row]);
+			}
+			ls_tour.twoOptLocalSearch();
+			arena.set(row, ls_tour);
+			arena.accept(row, ls_tour.getCost());
+		}
+		searchBest();
+    };
  
     
     /******************************************/
     /*         Metodos de cruzamiento         */ 
     /******************************************/   
     
-    private Vector<Tour> PMXCrossover (Vector<Tour> parents) 
+    private void PMXCrossover (int p1, int p2, TourArena out, int o1, int o2) 
 	/*
 	 * FUNCTION: PMXCrossover: aplica el operador PMX a los
 	 *           padres
-	 * INPUT: vector con 2 individuos padres: parents
-	 * OUTPUT: vector con 2 individuos hijos
-	 * COMMENTS: 
+	 * INPUT: filas de los 2 individuos padres: p1, p2, almacen donde se
+	 *        escriben los hijos: out, filas de los 2 hijos: o1, o2
+	 * OUTPUT: ninguno
+	 * COMMENTS: los hijos parten como copia de los padres y se les aplican
+	 *           swaps; pos1 y pos2 son los indices inversos de los hijos
      */
     {
-    	Vector<Tour> offspring = new Vector<Tour> ();
-    	Tour p1 = parents.get(0);
-    	Tour p2 = parents.get(1);
-    	Tour o1 = new Tour (p1);
-    	Tour o2 = new Tour (p2);
-    	
+    	int n = problem.getSize();
+    	int[] t = out.tours;
+    	int[] pt = arena.tours;
+    	int off1 = out.offset(o1), off2 = out.offset(o2);
+    	int poff1 = arena.offset(p1), poff2 = arena.offset(p2);
     	int cpoint;
     	int aux;
     	
+    	out.copy(o1, arena, p1);
+    	out.copy(o2, arena, p2);
+    	pos1 = fit(pos1, n);
+    	pos2 = fit(pos2, n);
+    	for (int i=0; i<n; i++) {
+    		pos1[t[off1+i]] = i;
+    		pos2[t[off2+i]] = i;
+    	}
+    	
     	/* Obtener punto de crossover */
     	cpoint = Utilities.random_n(problem.getSize()-1);
     	
     	System.out.println("cpoint: "+ cpoint);
     	/* Generar el primer hijo */
     	for (int i=0; i<cpoint; i++) {
-    		aux = o1.getPosition(p2.getNode(i));
-    		o1.swap(i,aux);
+    		aux = pos1[pt[poff2+i]];
+    		out.cost[o1] = Tour.swap_row(t, off1, pos1, out.cost[o1], i, aux);
     	}
     		
     	/* Generar el segundo hijo */
     	for (int i=cpoint; i<problem.getSize(); i++) {
-    		aux = o2.getPosition(p1.getNode(i));
-    		o2.swap(i,aux);
+    		aux = pos2[pt[poff1+i]];
+    		out.cost[o2] = Tour.swap_row(t, off2, pos2, out.cost[o2], i, aux);
     	}
     	
-    	offspring.add(o1);
-    	offspring.add(o2);
-    	return(offspring);
+    	if (TourHash.enabled) {
+    		out.hash[o1] = TourHash.of(t, off1, n);
+    		out.hash[o2] = TourHash.of(t, off2, n);
+    	}
     };
     
-    private Vector<Tour> OXCrossover (Vector<Tour> parents) 
+    private void OXCrossover (int p1, int p2, TourArena out, int o1, int o2) 
 	/*
 	 * FUNCTION: O1XCrossover: aplica el operador ORDER 1 a los
 	 *           padres
-	 * INPUT: vector con 2 individuos padres: parents
-	 * OUTPUT: vector con 2 individuos hijos
-	 * COMMENTS: 
+	 * INPUT: filas de los 2 individuos padres: p1, p2, almacen donde se
+	 *        escriben los hijos: out, filas de los 2 hijos: o1, o2
+	 * OUTPUT: ninguno
+	 * COMMENTS: cada hijo copia el segmento [r1,r2] de un padre y completa
+	 *           las demas posiciones, desde la 0 y saltando el segmento,
+	 *           con los nodos del otro padre que no estan en el segmento,
+	 *           en el orden de ese padre. La pertenencia al segmento se
+	 *           marca en in1/in2, por lo que es O(n)
      */
     {
-    	Tour p1 = parents.get(0);
-    	Tour p2 = parents.get(1);
-    	int[] h1 = new int[problem.getSize()+1];
-    	int[] h2 = new int[problem.getSize()+1];
-    	Vector<Integer> aux1in = new Vector<Integer>();
-    	Vector<Integer> aux1out = new Vector<Integer>();
-    	Vector<Integer> aux2in = new Vector<Integer>();
-    	Vector<Integer> aux2out = new Vector<Integer>();
-    	Vector<Tour> hijos = new Vector<Tour> ();
-    	int r1, r2;
+    	int n = problem.getSize();
+    	int[] pt = arena.tours;
+    	int poff1 = arena.offset(p1), poff2 = arena.offset(p2);
+    	int[] h = out.tours;
+    	int h1 = out.offset(o1), h2 = out.offset(o2);
+    	int r1, r2, k1, k2, v;
     	
     	do{
     		r1 = Utilities.random_n(problem.getSize()-1);
     		r2 = Utilities.random_n(problem.getSize()-1);
     	} while (r1 >= r2);
     	
-    	for (int i=r1; i<=r2; i++) {
-    		aux1in.add(p1.getNode(i));
-    		aux2in.add(p2.getNode(i));
-    	}
-    	
-    	for (int i=0; i<problem.getSize();i++) {
-    		if (!aux1in.contains(p2.getNode(i)))
-    			aux1out.add(p2.getNode(i));
-    		if (!aux2in.contains(p1.getNode(i)))
-    			aux2out.add(p1.getNode(i));
-    	}
-    	
-    	for (int i=0; i<r1; i++) {
-    		h1[i] = aux1out.get(0);
-			aux1out.remove(0);
-			h2[i] = aux2out.get(0);
-			aux2out.remove(0);
+    	in1 = fit(in1, n);
+    	in2 = fit(in2, n);
+    	if (++node_stamp == Integer.MAX_VALUE) {
+    		Arrays.fill(in1, 0);
+    		Arrays.fill(in2, 0);
+    		node_stamp = 1;
     	}
     	
+    	/* copiar los segmentos */
     	for (int i=r1; i<=r2; i++) {
-			h1[i] = aux1in.get(0);
-			aux1in.remove(0);
-			h2[i] = aux2in.get(0);
-			aux2in.remove(0);    		
+    		h[h1+i] = pt[poff1+i];
+    		in1[pt[poff1+i]] = node_stamp;
+    		h[h2+i] = pt[poff2+i];
+    		in2[pt[poff2+i]] = node_stamp;
     	}
-    
-    	for (int i=(r2+1); i<problem.getSize(); i++) {
-    		h1[i] = aux1out.get(0);
-			aux1out.remove(0);
-			h2[i] = aux2out.get(0);
-			aux2out.remove(0);
+    	
+    	/* completar con el otro padre, k1 y k2 son la siguiente posicion libre */
+    	k1 = k2 = 0;
+    	for (int i=0; i<n; i++) {
+    		v = pt[poff2+i];
+    		if (in1[v] != node_stamp) {
+    			if (k1 == r1) k1 = r2 + 1;
+    			h[h1+k1++] = v;
+    		}
+    		v = pt[poff1+i];
+    		if (in2[v] != node_stamp) {
+    			if (k2 == r1) k2 = r2 + 1;
+    			h[h2+k2++] = v;
+    		}
     	}
-     	h1[problem.getSize()] = h1[0];
-    	h2[problem.getSize()] = h2[0];
+     	h[h1+n] = h[h1];
+    	h[h2+n] = h[h2];
     	
-    	hijos.add(new Tour(h1, problem));
-    	hijos.add(new Tour(h2, problem));
-    	return(hijos);
+    	out.evaluate(o1);
+    	out.evaluate(o2);
     };
 
-    private Vector<Tour> OPXCrossover (Vector<Tour> parents, boolean test)
+    private void OPXCrossover (int p1, int p2, TourArena out, int o1, int o2, boolean test)
 	/*
 	 * FUNCTION: OPXCrossover: aplica el operador de cruzamiento
 	 *           en un punto a los padres
-	 * INPUT: vector con 2 individuos padres: parents
-	 * OUTPUT: vector con 2 individuos hijos
+	 * INPUT: filas de los 2 individuos padres: p1, p2, almacen donde se
+	 *        escriben los hijos: out, filas de los 2 hijos: o1, o2
+	 * OUTPUT: ninguno
 	 * COMMENTS: para realizar el cruzamiento se utiliza una
-	 *           representacion ordinal intermedia
+	 *           representacion ordinal intermedia: cada nodo se reemplaza
+	 *           por su posicion en una lista de referencia (0..n-1 en
+	 *           orden) de la que se van eliminando los nodos usados. La
+	 *           lista se representa con un arbol de Fenwick, por lo que
+	 *           codificar y decodificar es O(n log n)
      */
     {
-    	Tour p1 = parents.get(0);
-    	Tour p2 = parents.get(1);
-    	Vector<Integer> r1 = new Vector<Integer>();
-    	Vector<Integer> r2 = new Vector<Integer>();
-    	Vector<Tour> hijos = new Vector<Tour>();
-    	int aux;
+    	int n = problem.getSize();
+    	int[] pt = arena.tours;
+    	int poff1 = arena.offset(p1), poff2 = arena.offset(p2);
+    	int[] h = out.tours;
+    	int h1 = out.offset(o1), h2 = out.offset(o2);
+    	int aux, r;
     	
-    	int[] rp1 = new int[problem.getSize()];
-    	int[] rp2 = new int[problem.getSize()];
-    	int[] rh1 = new int[problem.getSize()];
-    	int[] rh2 = new int[problem.getSize()];
-    	int[] h1 = new int[problem.getSize()+1];
-    	int[] h2 = new int[problem.getSize()+1];
+    	rp1 = fit(rp1, n);
+    	rp2 = fit(rp2, n);
+    	fenwick1 = fit(fenwick1, n + 1);
+    	fenwick2 = fit(fenwick2, n + 1);
 
     	/* Codificacion con lista de referencia */
-    	for (int i=0; i<problem.getSize(); i++) {
-    		r1.add(i);
-    		r2.add(i);
-    	}
-    	
-    	for (int i=0; i<problem.getSize(); i++) {
-    		rp1[i] = r1.indexOf(p1.getNode(i));
-    		r1.remove(rp1[i]);
-    		rp2[i] = r2.indexOf(p2.getNode(i));
-    		r2.remove(rp2[i]);
+    	fenwick_fill(fenwick1, n);
+    	fenwick_fill(fenwick2, n);
+    	for (int i=0; i<n; i++) {
+    		rp1[i] = fenwick_rank_remove(fenwick1, n, pt[poff1+i]);
+    		rp2[i] = fenwick_rank_remove(fenwick2, n, pt[poff2+i]);
     	}
     	    	  	
-    	/* Crossover */
+    	/* Crossover: los hijos toman las primeras aux posiciones de un
+    	   padre y el resto del otro, se intercambian en rp1 y rp2 */
     	if (test)
           aux = 5;
     	else
     	  aux = Utilities.random_n(problem.getSize()-1);
-    	for (int i=0; i<problem.getSize(); i++) {
-    		if (i<aux) {
-    			rh1[i] = rp1[i];
-    			rh2[i] = rp2[i];
-    		} else {
-    			rh1[i] = rp2[i];
-    			rh2[i] = rp1[i];  			
-    		}
+    	for (int i=aux; i<n; i++) {
+    		r = rp1[i];
+    		rp1[i] = rp2[i];
+    		rp2[i] = r;
     	}
     	
     	/* Decodificación con lista de referencia */
-    	r1.clear();
-    	r2.clear();
-    	for (int i=0; i<problem.getSize(); i++) {
-    		r1.add(i);
-    		r2.add(i);
+    	fenwick_fill(fenwick1, n);
+    	fenwick_fill(fenwick2, n);
+    	for (int i=0; i<n; i++) {
+    		h[h1+i] = fenwick_select_remove(fenwick1, n, rp1[i]);
+    		h[h2+i] = fenwick_select_remove(fenwick2, n, rp2[i]);
+    	}	
+    	h[h1+n] = h[h1];
+    	h[h2+n] = h[h2];
+    	
+    	out.evaluate(o1);
+    	out.evaluate(o2);
+    	
+    };
+    
+    private static void fenwick_fill (int[] tree, int n)
+	/*
+	 * FUNCTION: fenwick_fill: inicia un arbol de Fenwick con los nodos
+	 *           0..n-1 presentes
+	 * INPUT: arbol (indices 1..n): tree, cantidad de nodos: n
+	 * OUTPUT: ninguno
+	 * COMMENTS: con todos los nodos presentes tree[i] cubre i & -i nodos
+     */
+    {
+    	for (int i=1; i<=n; i++)
+    		tree[i] = i & -i;
+    };
+    
+    private static int fenwick_rank_remove (int[] tree, int n, int node)
+	/*
+	 * FUNCTION: fenwick_rank_remove: posicion de un nodo en la lista de
+	 *           referencia y lo elimina
+	 * INPUT: arbol: tree, cantidad de nodos: n, nodo presente: node
+	 * OUTPUT: cantidad de nodos presentes menores que node
+	 * COMMENTS: equivalente a indexOf y remove sobre la lista
+     */
+    {
+    	int rank = 0;
+    	for (int i=node; i>0; i-=i&-i)
+    		rank += tree[i];
+    	for (int i=node+1; i<=n; i+=i&-i)
+    		tree[i]--;
+    	return rank;
+    };
+    
+    private static int fenwick_select_remove (int[] tree, int n, int rank)
+	/*
+	 * FUNCTION: fenwick_select_remove: nodo en una posicion de la lista
+	 *           de referencia y lo elimina
+	 * INPUT: arbol: tree, cantidad de nodos: n, posicion: rank
+	 * OUTPUT: el nodo presente con rank nodos presentes menores
+	 * COMMENTS: equivalente a get y remove sobre la lista. Desciende por
+	 *           el arbol con potencias de 2 decrecientes
+     */
+    {
+    	int i = 0;
+    	for (int step=Integer.highestOneBit(n); step>0; step>>=1) {
+    		if (i+step <= n && tree[i+step] <= rank) {
+    			i += step;
+    			rank -= tree[i];
+    		}
     	}
+    	/* el nodo es i (indice i+1 en el arbol) */
+    	for (int j=i+1; j<=n; j+=j&-j)
+    		tree[j]--;
+    	return i;
+    };
+    
+    private void ERXCrossover (int p1, int p2, TourArena out, int o1, int o2)
+	/*
+	 * FUNCTION: ERXCrossover: aplica el operador edge recombination a
+	 *           los padres
+	 * INPUT: filas de los 2 individuos padres: p1, p2, almacen donde se
+	 *        escriben los hijos: out, filas de los 2 hijos: o1, o2
+	 * OUTPUT: ninguno
+	 * COMMENTS: cada hijo comienza en el primer nodo de un padre y se
+	 *           construye con la tabla de aristas de ambos (ver
+	 *           EdgeRecombination), que se reconstruye para el segundo hijo
+     */
+    {
+    	int n = problem.getSize();
+    	int[] pt = arena.tours;
+    	int poff1 = arena.offset(p1), poff2 = arena.offset(p2);
     	
-    	for (int i=0; i<problem.getSize(); i++) {
-    		h1[i] = r1.get(rh1[i]);
-    		r1.remove(rh1[i]);
-    		h2[i] = r2.get(rh2[i]);
-    		r2.remove(rh2[i]);
-    	}	
-    	h1[problem.getSize()] = h1[0];
-    	h2[problem.getSize()] = h2[0];
+    	if (erx == null)
+    		erx = new EdgeRecombination(n);
     	
-    	hijos.add(new Tour(h1, problem));
-    	hijos.add(new Tour(h2, problem));
-    	return(hijos);
+    	erx.build(pt, poff1, pt, poff2);
+    	erx.child(pt[poff1], out.tours, out.offset(o1));
+    	erx.build(pt, poff1, pt, poff2);
+    	erx.child(pt[poff2], out.tours, out.offset(o2));
     	
+    	out.evaluate(o1);
+    	out.evaluate(o2);
     };
     
-    public Vector<Tour> crossover (int[] parents_id,  CrossoverType ctype, boolean test) 
+    private void EAXCrossover (int p1, int p2, TourArena out, int o1, int o2)
+	/*
+	 * FUNCTION: EAXCrossover: aplica el operador edge assembly a los
+	 *           padres
+	 * INPUT: filas de los 2 individuos padres: p1, p2, almacen donde se
+	 *        escriben los hijos: out, filas de los 2 hijos: o1, o2
+	 * OUTPUT: ninguno
+	 * COMMENTS: el primer hijo es el mejor de EdgeAssembly.children hijos
+	 *           con base en el primer padre y el segundo el mejor con base
+	 *           en el segundo. El costo de los hijos se calcula en forma
+	 *           incremental (ver EdgeAssembly)
+     */
+    {
+    	int[] pt = arena.tours;
+    	int poff1 = arena.offset(p1), poff2 = arena.offset(p2);
+    	long cost;
+    	
+    	if (eax == null)
+    		eax = new EdgeAssembly(problem);
+    	
+    	eax.prepare(pt, poff1, pt, poff2);
+    	cost = eax.child(pt, poff1, true, arena.cost[p1], out.tours, out.offset(o1));
+    	out.accept(o1, cost);
+    	cost = eax.child(pt, poff2, false, arena.cost[p2], out.tours, out.offset(o2));
+    	out.accept(o2, cost);
+    };
+    
+    private void GPXCrossover (int p1, int p2, TourArena out, int o1, int o2)
+	/*
+	 * FUNCTION: GPXCrossover: aplica el operador generalized partition a
+	 *           los padres
+	 * INPUT: filas de los 2 individuos padres: p1, p2, almacen donde se
+	 *        escriben los hijos: out, filas de los 2 hijos: o1, o2
+	 * OUTPUT: ninguno
+	 * COMMENTS: el primer hijo toma las partes no recombinables del primer
+	 *           padre y el segundo del segundo; si todas las partes son
+	 *           recombinables los hijos son iguales. El costo de los hijos
+	 *           se calcula en forma incremental (ver PartitionCrossover)
+     */
+    {
+    	int[] pt = arena.tours;
+    	long cost;
+    	
+    	if (gpx == null)
+    		gpx = new PartitionCrossover(problem);
+    	
+    	gpx.prepare(pt, arena.offset(p1), pt, arena.offset(p2));
+    	cost = gpx.child(true, arena.cost[p1], out.tours, out.offset(o1));
+    	out.accept(o1, cost);
+    	cost = gpx.child(false, arena.cost[p2], out.tours, out.offset(o2));
+    	out.accept(o2, cost);
+    };
+    
+    public void crossover (int[] parents_id,  CrossoverType ctype, boolean test, Population offspring) 
 	/*
 	 * FUNCTION: crossover: aplica el operador cruzamiento
 	 * INPUT: index en la poblacio de los padres: parents_id, 
-	 *        tipo de crossover: ctype
-	 * OUTPUT: vector con 2 individuos hijos
-	 * COMMENTS: 
+	 *        tipo de crossover: ctype, poblacion a la que se
+	 *        agregan los 2 hijos: offspring
+	 * OUTPUT: ninguno
+	 * COMMENTS: los hijos se escriben directamente en filas libres
+	 *           de offspring
      */
     {
-    	Vector <Tour> offspring = new Vector<Tour> ();
-    	Vector <Tour> parents = new Vector<Tour> ();
+    	/* Obtener las filas de los padres con los ids */
+    	int p1 = slot[parents_id[0]];
+    	int p2 = slot[parents_id[1]];
     	
-    	/* Obtener indivuduos padres con los ids */
-    	for (int i=0; i<parents_id.length; i++) {
-    		parents.addAll(getIndividuals(parents_id));
-    	}
+    	/* Filas de los hijos */
+    	int o1 = offspring.append();
+    	int o2 = offspring.append();
+    	TourArena out = offspring.arena;
     	
         /* Aplicar Crossover */
     	if (ctype == CrossoverType.PMX) {
-    		offspring.addAll(PMXCrossover(parents));
+    		PMXCrossover(p1, p2, out, o1, o2);
     	} else if (ctype == CrossoverType.OX) {
-    		offspring.addAll(OXCrossover(parents));
+    		OXCrossover(p1, p2, out, o1, o2);
     	} else if (ctype == CrossoverType.OPX) {
-    		offspring.addAll(OPXCrossover(parents, test));
+    		OPXCrossover(p1, p2, out, o1, o2, test);
+    	} else if (ctype == CrossoverType.ERX) {
+    		ERXCrossover(p1, p2, out, o1, o2);
+    	} else if (ctype == CrossoverType.EAX) {
+    		EAXCrossover(p1, p2, out, o1, o2);
+    	} else if (ctype == CrossoverType.GPX) {
+    		GPXCrossover(p1, p2, out, o1, o2);
     	} else {
-    	    offspring.addAll(OXCrossover(parents));
+    	    OXCrossover(p1, p2, out, o1, o2);
     	}
     	
-    	return(offspring);
+    	offspring.pop_size += 2;
+    	offspring.searchBest();
     };
     
 
@@ -752,13 +1187,14 @@ public class Population {
 	 * FUNCTION: selectIRandom: selecciona individuos aleatoriamente
 	 * INPUT: cantidad de individuos a seleccionar: size
 	 * OUTPUT: arreglo de index de los individuos seleccionados
-	 * COMMENTS: seleccion aleatoria uniforme
+	 * COMMENTS: seleccion aleatoria uniforme. El arreglo retornado se
+	 *           reutiliza en la siguiente llamada
 	 */
     {
-    	Vector<Integer> elegible = new Vector<Integer> ();
-    	int[] sel = new int[size]; 
     	int aux;
+    	int size_elegible;
     	
+    	sel = fit(sel, size);
     	if (size > pop_size) {
     		System.err.println("Error: No es posible seleccionar " +
     	                       size + " de una poblacion con "+
@@ -775,13 +1211,16 @@ public class Population {
     	}
     	
     	/* Añadir a todos los candidatos a ser seleccionados */
-    	for (int i=0; i<pop.size(); i++) elegible.add(i);
+    	elegible = fit(elegible, count);
+    	for (int i=0; i<count; i++) elegible[i] = i;
+    	size_elegible = count;
     	
     	/* Seleccionar aleatoriamente */
     	for (int i=0; i<size; i++) {
-    		aux = Utilities.random_n(elegible.size());
-    		sel[i]= elegible.get(aux);
-    		elegible.remove(aux);
+    		aux = Utilities.random_n(size_elegible);
+    		sel[i]= elegible[aux];
+    		System.arraycopy(elegible, aux+1, elegible, aux, size_elegible-aux-1);
+    		size_elegible--;
     	}
     	return(sel);
     };
@@ -795,55 +1234,59 @@ public class Population {
 	 * COMMENTS: seleccion proporcional al fitness (solo dos individuos)
 	 */
     {
-    	Vector<Tour> candidates = new Vector<Tour> ();
-    	Vector<Integer> ids = new Vector<Integer>();
-    	int[] sel = new int[2]; 
+    	int size_candidates;
     	double[] roulette;
     	double r;
     	boolean flag;
     	
+    	pair[0] = pair[1] = 0;
+    	
     	/* Si todos son seleccionados */
     	if (pop_size == 2) {
-    		sel[0] = 0;
-    		sel[1] = 1;
-    		return(sel);
+    		pair[0] = 0;
+    		pair[1] = 1;
+    		return(pair);
     	}
     	
     	/* Anadir candidatos a ser seleccionados*/
-    	candidates.addAll(pop);
+    	candidates = fit(candidates, count);
+    	ids = fit(ids, pop_size);
+    	System.arraycopy(slot, 0, candidates, 0, count);
+    	size_candidates = count;
     	for (int i=0; i<pop_size; i++) {
-    		ids.add(i);
+    		ids[i] = i;
     	}
     	
     	/* Primer padre seleccionado */
     	/* generar ruleta */
-    	roulette = generateRouletteWheel(candidates);
+    	roulette = generateRouletteWheel(candidates, size_candidates);
     	/* seleccionar */
 		r = Utilities.ran01();
 		flag = true;
-		for (int i=0; i<candidates.size() && flag; i++) {
+		for (int i=0; i<size_candidates && flag; i++) {
 			if (r < roulette[i]) {
-				sel[0] = sel[1] = ids.get(i);
-				candidates.remove(i);
-				ids.remove(i);
+				pair[0] = pair[1] = ids[i];
+				System.arraycopy(candidates, i+1, candidates, i, size_candidates-i-1);
+				System.arraycopy(ids, i+1, ids, i, pop_size-i-1);
+				size_candidates--;
 				flag = false;
 			}
 		}
 		
 		/* Segundo padre seleccionado*/
 		/* generar ruleta */
-		roulette = generateRouletteWheel(candidates);
+		roulette = generateRouletteWheel(candidates, size_candidates);
 		/* seleccionar */
     	r = Utilities.ran01();
     	flag = true;
-    	for(int i=0; i < candidates.size() && flag; i++) {
+    	for(int i=0; i < size_candidates && flag; i++) {
     		if (r < roulette[i]) {
-    			sel[1] = ids.get(i);
+    			pair[1] = ids[i];
     			flag = false;
     		}
     	}
     	
-    	return(sel);
+    	return(pair);
     };
     
     private int[] selectIBest (int size) 
@@ -854,7 +1297,7 @@ public class Population {
 	 * COMMENTS: seleccion elitista 
 	 */
     {
-    	int[] sel = new int[size];
+    	sel = fit(sel, size);
     	
     	/* Si todos son seleccionados */
     	if (size == pop_size) {
@@ -883,7 +1326,6 @@ public class Population {
 	 */
     {
     	int tsize = 3;
-    	int[] sel = new int[2];
     	int[] tsel;
     	int aux;
     	 
@@ -895,9 +1337,9 @@ public class Population {
     	/* Si todos son seleccionados */
     	if (pop_size == 2) {
     		for (int i=0; i<pop_size; i++) {
-    			sel[i] = i;
+    			pair[i] = i;
     		}
-    		return(sel);
+    		return(pair);
     	}
     	
     	/* seleccion del primer padre */
@@ -906,11 +1348,11 @@ public class Population {
     	aux = 0;
     	/* seleccionar mejor */
     	for (int j=1; j<tsize; j++) {
-    		if (pop.get(tsel[0]).getCost() > pop.get(tsel[j]).getCost()) {
+    		if (getFitness(tsel[0]) > getFitness(tsel[j])) {
     			aux = j;
     		}
     	}
-    	sel[0] = sel[1] = tsel[aux];	
+    	pair[0] = pair[1] = tsel[aux];	
     	
     	/* seleccion del segundo padre */
     	do {
@@ -919,14 +1361,14 @@ public class Population {
     		aux = 0;
     		/* seleccionar mejor */
     		for (int j=1; j<tsize; j++) {
-    			if (pop.get(tsel[0]).getCost() > pop.get(tsel[j]).getCost()) {
+    			if (getFitness(tsel[0]) > getFitness(tsel[j])) {
     				aux = j;
     			}
     		}
-    		sel[1] = tsel[aux];
-    	} while (sel[0] == sel[1]);
+    		pair[1] = tsel[aux];
+    	} while (pair[0] == pair[1]);
     	
-    	return(sel);
+    	return(pair);
     };
     
     public int[] selectParents (SelectionType stype) 
@@ -937,7 +1379,7 @@ public class Population {
 	 * COMMENTS: 
 	 */
     {
-    	int[] sel_index = new int[2];
+    	int[] sel_index;
     	
     	if (stype == SelectionType.BEST) {
     		sel_index = selectIBest(2);
@@ -968,8 +1410,6 @@ public class Population {
 	 *           individuos no seleccioandos
 	 */
     {
-    	Vector<Tour> selected = new Vector<Tour> ();
-    	
     	/* Si todos son seleccionados */
     	if (size == pop_size) {
     		return;
@@ -978,16 +1418,8 @@ public class Population {
     	/* ordernar poblacion */
     	orderPopulation();
     	
-    	/* seleccionar los mejores */
-    	for (int i=0; i<size; i++) {
-    		selected.add(pop.get(i));
-    	}
-    	
-    	/* eliminar todos los individuos */
-    	pop.removeAllElements();
-    	
-    	/* añadir seleccionados */
-    	pop.addAll(selected);
+    	/* seleccionar los mejores, el resto de las filas queda libre */
+    	count = size;
     	
     	/* actualizar poblacion */
     	pop_size = size;
@@ -1005,7 +1437,7 @@ public class Population {
 	 *           individuos no seleccioandos
 	 */
     {
-    	Vector<Tour> selected = new Vector<Tour> ();
+    	int size_selected = 0;
     	double[] roulette;
     	double r;
     	boolean flag;
@@ -1015,26 +1447,24 @@ public class Population {
     		return;
     	}
     	
+    	selected = fit(selected, size);
     	for (int i =0; i<size; i++) {
     		/* generar ruleta */
-    		roulette = generateRouletteWheel(pop);
+    		roulette = generateRouletteWheel(slot, count);
     		/* seleccionar */
     		r = Utilities.ran01();
     		flag = true;
-    		for(int j=0; j<pop.size() && flag; j++) {
+    		for(int j=0; j<count && flag; j++) {
     			if (r < roulette[j]) {
-    				selected.add(pop.get(j));
-    				pop.remove(j);
+    				selected[size_selected++] = slot[j];
+    				remove(j);
     				flag = false;
     			}
     		}
     	}
     	
-    	/* eliminar todos los individuos */
-    	pop.removeAllElements();
-    	
-    	/* añadir seleccionados */
-    	pop.addAll(selected);
+    	/* dejar solo los seleccionados */
+    	keep(selected, size_selected);
     	
     	/* actualizar poblacion */
     	pop_size = size;
@@ -1053,10 +1483,11 @@ public class Population {
 	 */
     {
     	int tsize = 3;
-    	int[] sel;
+    	int[] tsel;
     	int aux;
-    	Vector <Tour> selected = new Vector<Tour> ();
+    	int size_selected = 0;
 
+    	selected = fit(selected, size);
     	for (int i=0; i<size; i++) {
     		/* reduce el tamaño del torneo si es necesario */
     		while (tsize > pop_size) {
@@ -1069,28 +1500,25 @@ public class Population {
     		}
     		
     		/* seleccionar inviduos torneo */
-    		sel = selectIRandom(tsize);
+    		tsel = selectIRandom(tsize);
     		
     		/* seleccionar mejores */
     		aux = 0;
     		for (int j=1; j<tsize; j++) {
-    		    if (pop.get(sel[aux]).getCost() > pop.get(sel[j]).getCost()) {
+    		    if (getFitness(tsel[aux]) > getFitness(tsel[j])) {
     			    aux = j;
     		    }
     		}
     		
     		/* añadir a seleccionados */
-    		selected.add(pop.get(sel[aux]));
+    		selected[size_selected++] = slot[tsel[aux]];
     		
     		/* eliminar de la poblacion */
-    		pop.remove(sel[aux]);
+    		remove(tsel[aux]);
     	}
     	
-    	/* eliminar todos los individuos de la poblacion */
-    	pop.removeAllElements();
-    	
-    	/* añadir los seleccionados */
-    	pop.addAll(selected);
+    	/* dejar solo los seleccionados */
+    	keep(selected, size_selected);
     	
     	/* actualizar poblacion */
     	pop_size = size;
@@ -1108,8 +1536,8 @@ public class Population {
 	 *           individuos no seleccioandos
 	 */
     {
-    	Vector<Tour> selected = new Vector<Tour> ();
     	int r;
+    	int size_selected = 0;
     	
     	/* Si todos son seleccionados */
     	if (size == pop_size) {
@@ -1117,17 +1545,15 @@ public class Population {
     	}
     	
     	/* seleccionar */
+    	selected = fit(selected, size);
     	for (int i =0; i<size; i++) {
-    		r = Utilities.random_n(pop.size()-1);
-    		selected.add(pop.get(r));
-    		pop.remove(r);
+    		r = Utilities.random_n(count-1);
+    		selected[size_selected++] = slot[r];
+    		remove(r);
     	}
     	
-    	/* eliminar todos los individuos */
-    	pop.removeAllElements();
-    	
-    	/* añadir los seleccionados */
-    	pop.addAll(selected);
+    	/* dejar solo los seleccionados */
+    	keep(selected, size_selected);
     	
     	/* actualizar poblacion */
     	pop_size = size;
@@ -64,6 +64,10 @@ public class Runner {
         
       /* Leer opciones desde la linea de comando */
       AlgorithmOptions opciones = new AlgorithmOptions(args);
+      
+      /* Para probar operadores se revisan todos los tours creados */
+      if (test_flag)
+        TSP.validation = TSP.ValidationLevel.FULL;
         
       /* Inicializar objeto problema con la instancia entregada */
       TSP problem = new TSP(opciones.filename);
@@ -81,7 +85,12 @@ public class Runner {
       }
       
       /* Ejecutar la busqueda */
-      solver.search( opciones.max_evaluations, opciones.max_iterations);
+      try {
+        solver.search( opciones.max_evaluations, opciones.max_iterations);
+      } catch (InvalidTourException e) {
+        System.err.println("Error: " + e.getMessage());
+        System.exit(1);
+      }
       
       /* Mostrar la mejor solucion encontrada */
       System.out.println("\nTerminando ejecucion ...");
@@ -16,17 +16,47 @@ import java.io.Reader;
 import java.util.*;
 
 public class TSP {
+    enum ValidationLevel
+    /* Revision de los tours creados (ver validate_tour)
+     *   FULL: se revisan todos los tours
+     *   SAMPLED: se revisa 1 de cada validation_period tours
+     *   NONE: no se revisan, para benchmarks
+     */
+    {
+        FULL,
+        SAMPLED,
+        NONE
+    };
+    
+    /* nivel de revision de tours y periodo del nivel SAMPLED */
+    static ValidationLevel validation = ValidationLevel.SAMPLED;
+    static int validation_period = 100;
+    
     /* nombre de la instancia */
     private String name;
     /* numero de nodos */
     private int n;
-    /* matriz de distancia: distance[i][j] distancia de nodos i a j */
-    private int[][] distance;
+    /* matriz de distancia: distance.get(i,j) distancia de nodos i a j */
+    private DistanceMatrix distance;
     /* lista de vecinos mas cercanos: nn_list[i][j] para cada nodo
-       i una lista de vecinos ordenados*/
+       i una lista de los TSPlibReader.nn_size vecinos ordenados*/
     private int[][] nn_list;
     /* clase que lee una instancia del tsp */
     private TSPlibReader tsplib_instance;
+    /* si los nodos fueron renumerados (ver HilbertCurve): original_id[i] es
+       el numero en el archivo del nodo i, null en otro caso. Los tours usan
+       la numeracion interna y solo se traducen al imprimirlos o guardarlos.
+       internal_id es la traduccion inversa */
+    private int[] original_id;
+    private int[] internal_id;
+    /* marcas de tsp_check_tour: used[i] == used_stamp si el nodo i ya
+       aparecio en el tour revisado, evita crear y limpiar un arreglo */
+    private int[] used;
+    private int used_stamp;
+    /* contadores de validate_tour */
+    private long validated_tours;
+    private long checked_tours;
+    private long invalid_tours;
     
     public TSP (String tsp_file_name)
     /*
@@ -43,6 +73,15 @@ public class TSP {
         nn_list  = tsplib_instance.get_nn();
         /* obtener tamaño de la instancia */
         n = tsplib_instance.get_size();
+        /* obtener la numeracion original de los nodos */
+        original_id = tsplib_instance.get_original_ids();
+        if (original_id != null) {
+            internal_id = new int[n];
+            for (int i = 0; i < n; i++)
+                internal_id[original_id[i]] = i;
+        }
+        used = new int[n];
+        used_stamp = 0;
         /* Descomente para imprimir matriz de distancias*/
         //print_distances();
 
@@ -67,7 +106,7 @@ public class TSP {
         for (int i=0; i < n ; i++ ) {
             System.out.print("Desde " + i + ": ");
             for (int j=0; j < n ; j++ ) {
-                System.out.print (distance[i][j] + " ");
+                System.out.print (distance.get(i, j) + " ");
             }
             System.out.println("");
         }
@@ -80,9 +119,49 @@ public class TSP {
      * OUTPUT: distance between nodes i, j
      */
     {
-        return distance[i][j];
+        return distance.get(i, j);
+    };
+    
+    public DistanceMatrix get_distance_matrix ()
+    /*
+     * FUNCTION: get_distance_matrix
+     * INPUT: ninguno
+     * OUTPUT: matriz de distancias de la instancia
+     */
+    {
+        return distance;
     };
      
+    public int[][] get_nn_list ()
+    /*
+     * FUNCTION: get_nn_list
+     * INPUT: ninguno
+     * OUTPUT: listas de vecinos mas cercanos de cada nodo (nn_list)
+     */
+    {
+        return nn_list;
+    };
+     
+    public int original_node (int i)
+    /*
+     * FUNCTION: original_node: numero de un nodo en el archivo de la instancia
+     * INPUT: nodo en la numeracion interna: i
+     * OUTPUT: numero del nodo en el archivo
+     */
+    {
+        return (original_id == null) ? i : original_id[i];
+    };
+
+    public int internal_node (int id)
+    /*
+     * FUNCTION: internal_node: numero interno de un nodo del archivo
+     * INPUT: numero del nodo en el archivo de la instancia: id
+     * OUTPUT: nodo en la numeracion interna
+     */
+    {
+        return (internal_id == null) ? id : internal_id[id];
+    };
+
     public long compute_tour_length (int[] t)
     /* A IMPLEMENTAR
      * FUNCTION: computa el costo de un tour
@@ -91,11 +170,24 @@ public class TSP {
      *        corresponde al retorno a la ciudad inicial.
      * OUTPUT: costo del tour t
      */
+    {
+        return compute_tour_length(t, 0);
+    };
+    
+    public long compute_tour_length (int[] t, int offset)
+    /*
+     * FUNCTION: computa el costo de un tour guardado a partir de t[offset]
+     * INPUT: arreglo que contiene el tour: t, posicion donde comienza: offset
+     * OUTPUT: costo del tour
+     * COMMENTS: usado por TourArena, donde los tours son filas de un
+     *           unico arreglo
+     */
     {
         int i;
         long tour_length = 0;
-        for (i = 0; i < n; i++) {
-            tour_length += distance[t[i]][t[i + 1]];
+        DistanceMatrix d = distance;
+        for (i = offset; i < offset + n; i++) {
+            tour_length += d.get(t[i], t[i + 1]);
         }
         return tour_length;
     };
@@ -106,36 +198,51 @@ public class TSP {
      * INPUT: una solución del tsp
      * OUTPUT: TRUE si el tour es valido or FALSE si el tour no es valido
      */
+    {
+        if (t == null) {
+            System.err.println("error: permutacion no esta inicializada!");
+            System.exit(1);
+        }
+        return tsp_check_tour(t, 0);
+    };
+    
+    public boolean tsp_check_tour (int[] t, int offset)
+    /*
+     * FUNCTION: revisa la correctitud de una solucion del tsp guardada
+     *           a partir de t[offset]
+     * INPUT: arreglo que contiene la solucion: t, posicion donde comienza: offset
+     * OUTPUT: TRUE si el tour es valido or FALSE si el tour no es valido
+     */
     {
         int i;
         boolean error = false;
-        int[] used = new int[n];
         int size = n;
         
-        if (t == null) {
-            System.err.println("error: permutacion no esta inicializada!");
-            System.exit(1);
+        /* nueva marca, al dar la vuelta se limpian las anteriores */
+        if (++used_stamp == Integer.MAX_VALUE) {
+            Arrays.fill(used, 0);
+            used_stamp = 1;
         }
         
         for (i = 0; i < size; i++) {
-            if (used[t[i]] != 0) {
-                System.err.println("Error: la solucion tiene dos veces el valor " + t[i] +
+            if (used[t[offset + i]] == used_stamp) {
+                System.err.println("Error: la solucion tiene dos veces el valor " + t[offset + i] +
                                    "(ultima posicion: " + i  + ")");
                 error = true;
             } else
-                used[t[i]] = 1;
+                used[t[offset + i]] = used_stamp;
         }
         
         if (!error)
             for (i = 0; i < size; i++) {
-                if (used[i] == 0) {
+                if (used[i] != used_stamp) {
                     System.out.println("Error: posicion " + i + " en la solucion no esta ocupada");
                     error = true;
                 }
             }
         
         if (!error)
-            if (t[0] != t[size]) {
+            if (t[offset] != t[offset + size]) {
                 System.err.println("Error: la permutacion no es un tour cerrado.");
                 error = true;
             }
@@ -144,11 +251,55 @@ public class TSP {
             return true;
         System.err.println("Error: vector solucion:");
         for (i = 0; i < size; i++)
-            System.err.println(t[i]);
+            System.err.println(t[offset + i]);
         System.out.println();
         return false;
     };
     
+    public void validate_tour (int[] t, int offset)
+    /*
+     * FUNCTION: revisa un tour recien creado segun el nivel validation
+     * INPUT: arreglo que contiene la solucion: t, posicion donde comienza: offset
+     * OUTPUT: ninguno
+     * COMMENTS: lanza InvalidTourException si el tour revisado no es
+     *           valido. El nivel SAMPLED revisa los tours 0, p, 2p, ...
+     *           (p = validation_period) con un contador y no con numeros
+     *           aleatorios, para no alterar la secuencia del algoritmo
+     */
+    {
+        long k = validated_tours++;
+        
+        if (validation == ValidationLevel.NONE)
+            return;
+        if (validation == ValidationLevel.SAMPLED && k % validation_period != 0)
+            return;
+        
+        checked_tours++;
+        if (!tsp_check_tour(t, offset)) {
+            invalid_tours++;
+            throw new InvalidTourException("tour invalido (revision " + checked_tours +
+                                           ", " + invalid_tours + " invalidos)");
+        }
+    };
+    
+    public long get_checked_tours ()
+    /*
+     * FUNCTION: cantidad de tours revisados por validate_tour
+     * OUTPUT: tours revisados
+     */
+    {
+        return checked_tours;
+    };
+    
+    public long get_invalid_tours ()
+    /*
+     * FUNCTION: cantidad de tours invalidos encontrados por validate_tour
+     * OUTPUT: tours invalidos
+     */
+    {
+        return invalid_tours;
+    };
+    
     public void print_solution_and_cost(int[] t) {
         /*
          * FUNCTION: imprime una solucion y su costo
@@ -157,7 +308,7 @@ public class TSP {
          */
     	System.out.print("Solucion: ");
         for (int i=0; i < n+1; i++) {
-            System.out.print(t[i] + " ");
+            System.out.print(original_node(t[i]) + " ");
         }
         System.out.println("\nCosto: " + compute_tour_length(t));
     };
@@ -170,7 +321,7 @@ public class TSP {
          * OUTPUT: ninguno
          */
         for (int i=0; i < n+1; i++) {
-            System.out.print(t[i] + " ");
+            System.out.print(original_node(t[i]) + " ");
         }
         System.out.print(", Costo: " + compute_tour_length(t)+"\n");
     };
@@ -222,7 +373,7 @@ public class TSP {
             flag = true;
             /* ciclo para selccionar los nodos disponibles desde la lista de vecinos mas
                cercanos */
-            for (int j=0; j<n && flag; j++) {
+            for (int j=0; j<nn_list[tour[i-1]].length && flag; j++) {
                 /* revisar si el nodo ya esta seleccionado */
                 if (!selected[nn_list[tour[i-1]][j]]) {
                     tour[i] = nn_list[tour[i-1]][j];
@@ -230,16 +381,42 @@ public class TSP {
                     flag = false;
                 }
             }
+            /* todos los vecinos de la lista estan seleccionados: buscar el
+               nodo disponible mas cercano entre todos los nodos */
+            if (flag) {
+                tour[i] = nearest_unselected(tour[i-1], selected);
+                selected[tour[i]] = true;
+            }
         }
         tour[n] = tour[0]; /* nodo final */
         return tour;
     };
   
+    private int nearest_unselected (int node, boolean[] selected)
+    /*
+     * FUNCTION: buscar el nodo no seleccionado mas cercano a node
+     * INPUT: nodo de referencia: node, nodos ya seleccionados: selected
+     * OUTPUT: nodo no seleccionado mas cercano, -1 si no hay ninguno
+     */
+    {
+        int best = -1;
+        int best_d = Integer.MAX_VALUE;
+        for (int j=0; j<n; j++) {
+            if (!selected[j] && distance.get(node, j) < best_d) {
+                best = j;
+                best_d = distance.get(node, j);
+            }
+        }
+        return best;
+    };
+  
     public int[] deterministic_tour ()
     /*
      * FUNCTION: generar una solucion determinista
      * INPUT: ninguno
      * OUTPUT: un arreglo de tamaño nodos+1 con el tour determinista
+     * COMMENTS: el tour sigue el orden del archivo aunque los nodos
+     *           hayan sido renumerados
      */
     {
         ArrayList<Integer> nodes = new ArrayList<Integer>();
@@ -247,7 +424,10 @@ public class TSP {
         int index;
         
         for (int i = 0; i < n; i++) {
-            tour[i] = i;
+            if (original_id == null)
+                tour[i] = i;
+            else
+                tour[original_id[i]] = i;
         }
         tour[n] = tour[0]; /* ultimo nodo retorno al nodo inicial */
         return tour;
@@ -8,12 +8,14 @@ package algorithms;
  * Codigo basado en: http://adibaba.github.io/ACOTSPJava/
  */
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class TSPlibReader {
   static class point {
@@ -26,16 +28,490 @@ public class TSPlibReader {
     EUC_2D, CEIL_2D, GEO, ATT
   };
 
+  /* Modos de almacenamiento de las distancias
+   *   AUTO: matriz si n <= triangular_threshold, triangular si
+   *         n <= implicit_threshold, implicito en otro caso
+   *   MATRIX: matriz completa n x n
+   *   TRIANGULAR: solo el triangulo superior de la matriz, n(n+1)/2
+   *   IMPLICIT: solo coordenadas, distancias calculadas bajo demanda
+   */
+  enum Distance_storage {
+    AUTO, MATRIX, TRIANGULAR, IMPLICIT
+  };
+
+  /* modo de almacenamiento de las distancias */
+  static Distance_storage storage = Distance_storage.AUTO;
+  /* tamaño desde el cual AUTO usa el modo triangular */
+  static int triangular_threshold = 5000;
+  /* tamaño desde el cual AUTO usa el modo implicito */
+  static int implicit_threshold = 10000;
+  /* largo de las listas de vecinos mas cercanos (candidatos) */
+  static int nn_size = 16;
+  /* guardar las distancias en 16 bits cuando la distancia maxima lo permite */
+  static boolean adaptive_width = true;
+  /* directorio del cache binario de instancias (ver InstanceCache), null
+     si no se usa cache */
+  static String cache_dir = null;
+  /* renumerar los nodos a lo largo de una curva de Hilbert (ver HilbertCurve) */
+  static boolean renumber = false;
+  /* imprimir el tiempo de preprocesamiento de la instancia */
+  static boolean print_times = false;
+
+  /* Coordenadas GEO convertidas a radianes una sola vez por nodo, con sus
+   * senos y cosenos. Para dos nodos se calcula el coseno del angulo central
+   *   c = sin(lat_i)sin(lat_j) + cos(long_i - long_j)cos(lat_i)cos(lat_j)
+   * que es algebraicamente igual a la formula de TSPLIB. La distancia es
+   * floor(RRR * acos(c)) + 1; en vez de llamar a acos (lento, no tiene
+   * intrinseco) se busca c en la tabla threshold[k] = cos(k / RRR), que
+   * es decreciente. Si c queda muy cerca de un umbral, o de +-1 donde la
+   * formula original puede dar NaN, se usa la formula original para que
+   * el entero sea siempre el mismo */
+  static class geo_table {
+    private static final double RRR = 6378.388;
+    /* margen bajo el cual se recalcula con la formula original */
+    private static final double EPS = 1e-12;
+    /* threshold[k] = cos(k / RRR) para k <= floor(RRR * pi), media vuelta
+     * a la tierra. Mas alla de pi el coseno vuelve a crecer, por lo que la
+     * ultima casilla es -infinito: ningun c la alcanza y la busqueda no
+     * sale de la tabla */
+    private static final double[] threshold;
+    static {
+      int last = (int) Math.floor(RRR * Math.PI);
+      threshold = new double[last + 2];
+      for (int k = 0; k <= last; k++)
+        threshold[k] = Math.cos(k / RRR);
+      threshold[last + 1] = Double.NEGATIVE_INFINITY;
+    }
+
+    final double[] lat;
+    final double[] lon;
+    final double[] cos_lat;
+    final double[] sin_lat;
+    final double[] cos_lon;
+    final double[] sin_lon;
+
+    geo_table(double[] x, double[] y)
+    /*
+     * FUNCTION: Constructor clase geo_table
+     * INPUT: coordenadas GEO de los nodos en formato grados.minutos: x, y
+     */
+    {
+      int n = x.length;
+      lat = new double[n];
+      lon = new double[n];
+      cos_lat = new double[n];
+      sin_lat = new double[n];
+      cos_lon = new double[n];
+      sin_lon = new double[n];
+      for (int i = 0; i < n; i++) {
+        lat[i] = geo_radians(x[i]);
+        lon[i] = geo_radians(y[i]);
+        cos_lat[i] = Math.cos(lat[i]);
+        sin_lat[i] = Math.sin(lat[i]);
+        cos_lon[i] = Math.cos(lon[i]);
+        sin_lon[i] = Math.sin(lon[i]);
+      }
+    }
+
+    int distance(int i, int j)
+    /*
+     * FUNCTION: distance: distancia GEO entre dos nodos
+     * INPUT: nodos: i, j
+     * OUTPUT: el mismo entero que geo_distance
+     */
+    {
+      double q1 = cos_lon[i] * cos_lon[j] + sin_lon[i] * sin_lon[j];
+      double c = sin_lat[i] * sin_lat[j] + q1 * cos_lat[i] * cos_lat[j];
+      if (c > 1.0 - 1e-9 || c < -1.0 + 1e-9)
+        return exact(i, j);
+      /* estimacion de k = floor(RRR * acos(c)) con error menor a 1 */
+      int k = (int) (RRR * approx_acos(c));
+      if (k > threshold.length - 2)
+        k = threshold.length - 2;
+      while (k > 0 && c > threshold[k])
+        k--;
+      while (c <= threshold[k + 1])
+        k++;
+      if (threshold[k] - c < EPS || c - threshold[k + 1] < EPS)
+        return exact(i, j);
+      return k + 1;
+    }
+
+    int exact(int i, int j)
+    /*
+     * FUNCTION: exact: distancia GEO con la formula de TSPLIB
+     * INPUT: nodos: i, j
+     * OUTPUT: distancia entre los nodos
+     */
+    {
+      return geo_radians_distance(lat[i], lon[i], lat[j], lon[j]);
+    }
+
+    private static double approx_acos(double c)
+    /*
+     * FUNCTION: approx_acos: aproximacion de acos con error menor a 7e-5
+     * INPUT: coseno c en [-1,1]
+     * OUTPUT: angulo en radianes
+     * COMMENTS: Abramowitz y Stegun 4.4.45
+     */
+    {
+      double a = Math.abs(c);
+      double r = Math.sqrt(1.0 - a) * (1.5707288 + a * (-0.2121144 + a * (0.0742610 - a * 0.0187293)));
+      return (c < 0.0) ? Math.PI - r : r;
+    }
+  };
+
+  /* Tarea que computa las filas [lo,hi) de la matriz de distancias.
+   * Todas las distancias son simetricas: en la primera pasada cada fila i
+   * solo computa las columnas j >= i, en la segunda (mirror) se copia el
+   * triangulo superior en el inferior. Cada tipo de distancia tiene su
+   * propio ciclo para no evaluar el tipo en el ciclo interno */
+  static class DistanceTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    /* filas por tarea bajo las cuales no se divide el trabajo */
+    static final int ROWS_PER_TASK = 16;
+
+    final WritableDistanceMatrix matrix;
+    final Distance_type type;
+    final double[] x;
+    final double[] y;
+    final geo_table geo;
+    final int lo;
+    final int hi;
+    final boolean mirror;
+
+    DistanceTask(WritableDistanceMatrix matrix, Distance_type type, double[] x, double[] y,
+                 geo_table geo, int lo, int hi, boolean mirror)
+    /*
+     * FUNCTION: Constructor clase DistanceTask
+     * INPUT: matriz a llenar: matrix, tipo de distancia: type, coordenadas:
+     *        x, y, tabla GEO (null si no es GEO): geo, filas [lo,hi),
+     *        si se copia el triangulo superior al inferior: mirror
+     */
+    {
+      this.matrix = matrix;
+      this.type = type;
+      this.x = x;
+      this.y = y;
+      this.geo = geo;
+      this.lo = lo;
+      this.hi = hi;
+      this.mirror = mirror;
+    }
+
+    @Override
+    protected void compute()
+    /*
+     * FUNCTION: compute: computa las filas de la tarea
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     * COMMENTS: con mas de ROWS_PER_TASK filas divide la tarea en dos
+     *           mitades que se ejecutan en paralelo
+     */
+    {
+      if (hi - lo > ROWS_PER_TASK) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new DistanceTask(matrix, type, x, y, geo, lo, mid, mirror),
+                  new DistanceTask(matrix, type, x, y, geo, mid, hi, mirror));
+        return;
+      }
+      if (mirror) {
+        mirror_rows();
+      } else if (type == Distance_type.EUC_2D) {
+        euc_rows();
+      } else if (type == Distance_type.CEIL_2D) {
+        ceil_rows();
+      } else if (type == Distance_type.ATT) {
+        att_rows();
+      } else {
+        geo_rows();
+      }
+    }
+
+    private void mirror_rows()
+    /*
+     * FUNCTION: mirror_rows: copia el triangulo superior en el inferior
+     *           para las filas [lo,hi)
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      /* copia por bloques de columnas para leer la matriz de forma local */
+      final int tile = 64;
+      for (int jb = 0; jb < hi; jb += tile) {
+        for (int i = lo; i < hi; i++) {
+          int jend = Math.min(jb + tile, i);
+          for (int j = jb; j < jend; j++) {
+            matrix.set(i, j, matrix.get(j, i));
+          }
+        }
+      }
+    }
+
+    private void euc_rows()
+    /*
+     * FUNCTION: euc_rows: computa las distancias EUC_2D de las filas [lo,hi),
+     *           columnas j >= i
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      int n = x.length;
+      for (int i = lo; i < hi; i++) {
+        double xi = x[i], yi = y[i];
+        for (int j = i; j < n; j++) {
+          int d = round_distance(xi, yi, x[j], y[j]);
+          matrix.set(i, j, d);
+        }
+      }
+    }
+
+    private void ceil_rows()
+    /*
+     * FUNCTION: ceil_rows: computa las distancias CEIL_2D de las filas [lo,hi),
+     *           columnas j >= i
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      int n = x.length;
+      for (int i = lo; i < hi; i++) {
+        double xi = x[i], yi = y[i];
+        for (int j = i; j < n; j++) {
+          int d = ceil_distance(xi, yi, x[j], y[j]);
+          matrix.set(i, j, d);
+        }
+      }
+    }
+
+    private void att_rows()
+    /*
+     * FUNCTION: att_rows: computa las distancias ATT de las filas [lo,hi),
+     *           columnas j >= i
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      int n = x.length;
+      for (int i = lo; i < hi; i++) {
+        double xi = x[i], yi = y[i];
+        for (int j = i; j < n; j++) {
+          int d = att_distance(xi, yi, x[j], y[j]);
+          matrix.set(i, j, d);
+        }
+      }
+    }
+
+    private void geo_rows()
+    /*
+     * FUNCTION: geo_rows: computa las distancias GEO de las filas [lo,hi),
+     *           columnas j >= i
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      int n = x.length;
+      for (int i = lo; i < hi; i++) {
+        for (int j = i; j < n; j++) {
+          int d = geo.distance(i, j);
+          matrix.set(i, j, d);
+        }
+      }
+    }
+  };
+
+  /* Lector de un archivo mapeado en memoria. Los numeros se leen
+   * directamente desde los bytes sin crear objetos */
+  static class byte_scanner {
+    /* potencias de 10 representables exactamente como double */
+    private static final double[] POW10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int pos;
+
+    byte_scanner(ByteBuffer buffer)
+    /*
+     * FUNCTION: Constructor clase byte_scanner
+     * INPUT: contenido del archivo: buffer
+     */
+    {
+      this.buffer = buffer;
+      this.limit = buffer.limit();
+      this.pos = 0;
+    }
+
+    boolean has_remaining()
+    /*
+     * FUNCTION: has_remaining
+     * INPUT: ninguno
+     * OUTPUT: TRUE si quedan bytes por leer
+     */
+    {
+      return pos < limit;
+    }
+
+    String next_line()
+    /*
+     * FUNCTION: next_line: lee una linea
+     * INPUT: ninguno
+     * OUTPUT: linea sin el salto de linea final
+     */
+    {
+      int start = pos;
+      while (pos < limit && buffer.get(pos) != '\n')
+        pos++;
+      int end = pos;
+      if (pos < limit)
+        pos++;
+      if (end > start && buffer.get(end - 1) == '\r')
+        end--;
+      byte[] bytes = new byte[end - start];
+      for (int k = 0; k < bytes.length; k++)
+        bytes[k] = buffer.get(start + k);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    boolean skip_whitespace()
+    /*
+     * FUNCTION: skip_whitespace: salta espacios y saltos de linea
+     * INPUT: ninguno
+     * OUTPUT: FALSE si se llego al final
+     */
+    {
+      while (pos < limit && buffer.get(pos) <= ' ')
+        pos++;
+      return pos < limit;
+    }
+
+    boolean at_eof()
+    /*
+     * FUNCTION: at_eof
+     * INPUT: ninguno
+     * OUTPUT: TRUE si la posicion actual comienza con EOF
+     */
+    {
+      return pos + 3 <= limit && buffer.get(pos) == 'E' && buffer.get(pos + 1) == 'O'
+             && buffer.get(pos + 2) == 'F';
+    }
+
+    void skip_token()
+    /*
+     * FUNCTION: skip_token: salta espacios y la palabra siguiente
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      while (pos < limit && buffer.get(pos) <= ' ')
+        pos++;
+      while (pos < limit && buffer.get(pos) > ' ')
+        pos++;
+    }
+
+    void skip_line()
+    /*
+     * FUNCTION: skip_line: salta hasta el inicio de la linea siguiente
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+    {
+      while (pos < limit && buffer.get(pos) != '\n')
+        pos++;
+      if (pos < limit)
+        pos++;
+    }
+
+    double next_double()
+    /*
+     * FUNCTION: next_double: lee un numero
+     * INPUT: ninguno
+     * OUTPUT: numero leido
+     * COMMENTS: lee [signo] digitos [. digitos] [e [signo] digitos]. Si la
+     *           mantisa cabe en 53 bits y el exponente decimal en [-22,22],
+     *           m * 10^p y m / 10^p se redondean una sola vez y el resultado
+     *           es identico al de Double.parseDouble; en otro caso se usa
+     *           Double.parseDouble
+     */
+    {
+      while (pos < limit && (buffer.get(pos) == ' ' || buffer.get(pos) == '\t'))
+        pos++;
+      int start = pos;
+      boolean negative = false;
+      long mantissa = 0;
+      int digits = 0;
+      int scale = 0;
+      int exponent = 0;
+      boolean exact = true;
+      byte c = (pos < limit) ? buffer.get(pos) : 0;
+
+      if (c == '-' || c == '+') {
+        negative = (c == '-');
+        pos++;
+      }
+      while (pos < limit && (c = buffer.get(pos)) >= '0' && c <= '9') {
+        if (digits < 18) mantissa = mantissa * 10 + (c - '0'); else exact = false;
+        if (mantissa != 0) digits++;
+        pos++;
+      }
+      if (pos < limit && buffer.get(pos) == '.') {
+        pos++;
+        while (pos < limit && (c = buffer.get(pos)) >= '0' && c <= '9') {
+          if (digits < 18) mantissa = mantissa * 10 + (c - '0'); else exact = false;
+          if (mantissa != 0) digits++;
+          scale++;
+          pos++;
+        }
+      }
+      if (pos < limit && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+        pos++;
+        boolean exp_negative = false;
+        if (pos < limit && (buffer.get(pos) == '-' || buffer.get(pos) == '+')) {
+          exp_negative = (buffer.get(pos) == '-');
+          pos++;
+        }
+        while (pos < limit && (c = buffer.get(pos)) >= '0' && c <= '9') {
+          if (exponent < 10000) exponent = exponent * 10 + (c - '0');
+          pos++;
+        }
+        if (exp_negative) exponent = -exponent;
+      }
+      if (pos < limit && buffer.get(pos) > ' ')
+        exact = false;  /* formato no reconocido (Infinity, hexadecimal, ...) */
+
+      int p = exponent - scale;
+      if (exact && pos > start && mantissa <= (1L << 53) && p >= -22 && p <= 22) {
+        double value = (p >= 0) ? mantissa * POW10[p] : mantissa / POW10[-p];
+        return negative ? -value : value;
+      }
+
+      /* caso general */
+      while (pos < limit && buffer.get(pos) > ' ')
+        pos++;
+      byte[] bytes = new byte[pos - start];
+      for (int k = 0; k < bytes.length; k++)
+        bytes[k] = buffer.get(start + k);
+      return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+    }
+  };
+
   /* arreglo de estructuras que contiene las coordenadas */
   private point[] nodeptr;  
   /* variable that indicates distance type */
   private Distance_type distance_type;
-  /* matriz de distancia: distance[i][j] distancia de nodos i a j */
-  private int[][] distance;
-  /* lista de vecinos mas cercanos: nn_list[i][j] para cada nodo i una lista de vecinos ordenados */
+  /* matriz de distancia: distance.get(i,j) distancia de nodos i a j */
+  private DistanceMatrix distance;
+  /* lista de vecinos mas cercanos: nn_list[i][j] para cada nodo i una lista de
+     nn_size vecinos ordenados */
   private int[][] nn_list;
   /* numero de nodos */
   private int n; 
+  /* si los nodos fueron renumerados: original_id[i] es el numero del nodo
+     i en el archivo de la instancia, null en otro caso */
+  private int[] original_id;
   /* instance file name */
   private String name;
 
@@ -44,8 +520,23 @@ public class TSPlibReader {
   /*
    * FUNCTION: Constructor clase TSPlibReader class
    * INPUT: Ruta al archivo de la instancia
+   * COMMENTS: si existe un cache valido de la instancia se usa en lugar
+   *           de leer y preprocesar el archivo TSPlib
    */
   {
+    byte[] hash = null;
+    if (cache_dir != null) {
+      try {
+        hash = InstanceCache.content_hash(tsp_file_name);
+        if (load_cache(tsp_file_name, hash)) {
+          System.out.println("  instancia "+ name + " con " + n + " nodos (cache)");
+          return;
+        }
+      } catch (IOException e) {
+        System.err.println("Advertencia: no se pudo leer el cache. " + e.getMessage());
+      }
+    }
+
     try {
       /* leer instancia desde un archivo */
       nodeptr = read_etsp(tsp_file_name); 
@@ -53,11 +544,63 @@ public class TSPlibReader {
       System.err.println("No se pudo leer el archivo. " + e.getMessage());
       System.exit(1);
     }
+    if (renumber)
+      renumber_nodes();
     /* obtener la matriz de distancias */
-    compute_distances();
+    long start = System.nanoTime();
+    WritableDistanceMatrix matrix = compute_distances();
+    long build = System.nanoTime() - start;
      /* generar listas de vecinos ordenados */
     compute_nn_lists();
     System.out.println("  instancia "+ name + " con " + n + " nodos");
+    if (print_times)
+      System.out.printf("  tiempo de preprocesamiento: distancias %.1f ms, vecinos %.1f ms%n",
+                        build / 1e6, (System.nanoTime() - start - build) / 1e6);
+
+    if (hash != null) {
+      try {
+        InstanceCache.store(InstanceCache.cache_file_name(cache_dir, tsp_file_name), hash, name, distance_type,
+                            nodeptr, original_id, nn_list, matrix);
+      } catch (IOException e) {
+        System.err.println("Advertencia: no se pudo escribir el cache. " + e.getMessage());
+      }
+    }
+  }
+
+  private boolean load_cache(String tsp_file_name, byte[] hash) throws IOException
+    /*
+     * FUNCTION: load_cache: carga la instancia desde su archivo de cache
+     * INPUT: ruta al archivo de la instancia, hash de su contenido
+     * OUTPUT: TRUE si el cache es valido y fue cargado, FALSE en otro caso
+     * COMMENTS: el cache no sirve si fue creado con otro largo de listas de
+     *           vecinos, con otra numeracion de los nodos o si no tiene la
+     *           matriz (en la forma pedida) y esta se necesita
+     */
+    {
+    InstanceCache cache = InstanceCache.load(InstanceCache.cache_file_name(cache_dir, tsp_file_name), hash);
+    if (cache == null)
+      return false;
+    n = cache.n;
+    if (cache.nn_list[0].length != Math.min(nn_size, n - 1))
+      return false;
+    if ((cache.original_id != null) != renumber)
+      return false;
+    if (cache.distance == null && !use_implicit())
+      return false;
+    if (cache.distance != null && !use_implicit()
+        && cache.distance.is_triangular() != use_triangular())
+      return false;
+
+    name = cache.name;
+    distance_type = cache.distance_type;
+    nodeptr = cache.nodeptr;
+    original_id = cache.original_id;
+    nn_list = cache.nn_list;
+    if (use_implicit())
+      distance = new ImplicitDistanceMatrix(nodeptr, distance_type);
+    else
+      distance = cache.distance;
+    return true;
   }
     
   private point[] read_etsp(String tsp_file_name) throws IOException
@@ -65,10 +608,13 @@ public class TSPlibReader {
      * FUNCTION: read_etsp: lectura y parsing de instancia TSPlib
      * INPUT: ruta al archivo de instancia
      * OUTPUT: arreglo de coordenadas
-     * COMMENTS: archivo de instancia debe estar en formato TSPLIB
+     * COMMENTS: archivo de instancia debe estar en formato TSPLIB. El archivo
+     *           se mapea en memoria y las coordenadas se leen directamente
+     *           desde los bytes, sin crear Strings (ver byte_scanner)
      */
     {
     String buf;
+    String line;
     int i=0;
     point[] nodeptr = null;
     boolean found_coord_section = false;
@@ -84,140 +630,150 @@ public class TSPlibReader {
     }
         
     System.out.println("\nLeyendo archivo TSPlib " + tsp_file_name + " ... ");
-    Reader reader = new InputStreamReader(new FileInputStream(tsp_file_name), "UTF8");
-    BufferedReader bufferedReader = new BufferedReader(reader);
-    String line = bufferedReader.readLine();
-    while (line != null) {
+    byte_scanner scanner;
+    try (FileChannel channel = FileChannel.open(Paths.get(tsp_file_name))) {
+      scanner = new byte_scanner(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+
+    /* cabecera: pocas lineas, se leen como String */
+    while (!found_coord_section && scanner.has_remaining()) {
+      line = scanner.next_line();
       if (line.trim().startsWith("EOF"))
         break;
-      if (!found_coord_section) {
-        if (line.startsWith("NAME")) {
-          name = line.split(":")[1].trim();
-        } else if (line.startsWith("COMMENT")) {
-        } else if (line.startsWith("TYPE") && !line.contains("TSP")) {
-          System.err.println("Instancia no esta en el formato TSPLIB !!");
+      if (line.startsWith("NAME")) {
+        name = line.split(":")[1].trim();
+      } else if (line.startsWith("COMMENT")) {
+      } else if (line.startsWith("TYPE") && !line.contains("TSP")) {
+        System.err.println("Instancia no esta en el formato TSPLIB !!");
+        System.exit(1);
+      } else if (line.startsWith("DIMENSION")) {
+        n = Integer.parseInt(line.split(":")[1].trim());
+        nodeptr = new point[n];
+        assert (n > 2);
+      } else if (line.startsWith("DISPLAY_DATA_TYPE")) {
+      } else if (line.startsWith("EDGE_WEIGHT_TYPE")) {
+        buf = line.split(":")[1].trim();
+        if (buf.equals("EUC_2D")) {
+          distance_type = Distance_type.EUC_2D;
+        } else if (buf.equals("CEIL_2D")) {
+          distance_type = Distance_type.CEIL_2D;
+        } else if (buf.equals("GEO")) {
+          distance_type = Distance_type.GEO;
+        } else if (buf.equals("ATT")) {
+          distance_type = Distance_type.ATT;
+        } else {
+          System.err.println("EDGE_WEIGHT_TYPE " + buf + " no implementado en la clase.");
           System.exit(1);
-        } else if (line.startsWith("DIMENSION")) {
-          n = Integer.parseInt(line.split(":")[1].trim());
-          nodeptr = new point[n];
-          assert (n > 2 && n < 6000);
-        } else if (line.startsWith("DISPLAY_DATA_TYPE")) {
-        } else if (line.startsWith("EDGE_WEIGHT_TYPE")) {
-          buf = line.split(":")[1].trim();
-          if (buf.equals("EUC_2D")) {
-            distance_type = Distance_type.EUC_2D;
-          } else if (buf.equals("CEIL_2D")) {
-            distance_type = Distance_type.CEIL_2D;
-          } else if (buf.equals("GEO")) {
-            distance_type = Distance_type.GEO;
-          } else if (buf.equals("ATT")) {
-            distance_type = Distance_type.ATT;
-          } else {
-            System.err.println("EDGE_WEIGHT_TYPE " + buf + " no implementado en la clase.");
-            System.exit(1);
-          }
         }
-      } else {
-        String[] city_info = line.trim().split("\\s+");
-        nodeptr[i] = new point();
-        nodeptr[i].x = Double.parseDouble(city_info[1]);
-        nodeptr[i].y = Double.parseDouble(city_info[2]);
-        i++;
       }
-            
       if (line.startsWith("NODE_COORD_SECTION"))
         found_coord_section = true;
-      line = bufferedReader.readLine();
     }
     if (!found_coord_section) {
       System.err.println("Error ocurrio al buscar el inicio de las coordenadas !!");
       System.exit(1);
     }
-    bufferedReader.close();
+
+    /* coordenadas: "indice x y" por linea, hasta EOF o fin del archivo */
+    while (i < n && scanner.skip_whitespace() && !scanner.at_eof()) {
+      scanner.skip_token(); /* indice del nodo */
+      nodeptr[i] = new point();
+      nodeptr[i].x = scanner.next_double();
+      nodeptr[i].y = scanner.next_double();
+      scanner.skip_line();
+      i++;
+    }
+    if (i < n) {
+      System.err.println("Error: la instancia tiene " + i + " coordenadas de " + n + " !!");
+      System.exit(1);
+    }
     return (nodeptr);
   };
 
-  private int round_distance(int i, int j)
+  static int round_distance(double xi, double yi, double xj, double yj)
     /*
      * FUNCTION: round_distance: computa la distacia Euclidiana
      *           (redondeada al siguiente entero) entre dos nodos
-     * INPUT: indices de dos nodos
+     * INPUT: coordenadas de dos nodos
      * OUTPUT: distancia entre dos nodos
      * COMMENTS: para una definicion de como calcular esta distancia vea
      *           TSPLIB
      */
   {
-    double xd = nodeptr[i].x - nodeptr[j].x;
-    double yd = nodeptr[i].y - nodeptr[j].y;
+    double xd = xi - xj;
+    double yd = yi - yj;
     double r = Math.sqrt(xd * xd + yd * yd) + 0.5;
     return (int) r;
   };
     
-  private int ceil_distance(int i, int j)
+  static int ceil_distance(double xi, double yi, double xj, double yj)
     /*
      * FUNCTION: ceil_distance: computa la distacia Euclidiana
      *           (usando funcion techo) entre dos nodos
-     * INPUT: indices de dos nodos
+     * INPUT: coordenadas de dos nodos
      * OUTPUT: distancia entre dos nodos
      * COMMENTS: para una definicion de como calcular esta distancia vea
      *           TSPLIB
      */
     {
-    double xd = nodeptr[i].x - nodeptr[j].x;
-    double yd = nodeptr[i].y - nodeptr[j].y;
+    double xd = xi - xj;
+    double yd = yi - yj;
     double r = Math.sqrt(xd * xd + yd * yd);
     return (int) Math.ceil(r);
   }
     
-  private int geo_distance(int i, int j)
+  static double geo_radians(double v)
+    /*
+     * FUNCTION: geo_radians: convierte una coordenada GEO a radianes
+     * INPUT: coordenada en formato grados.minutos de TSPLIB
+     * OUTPUT: coordenada en radianes
+     */
+    {
+    double deg = Utilities.dtrunc(v);
+    double min = v - deg;
+    return Math.PI * (deg + 5.0 * min / 3.0) / 180.0;
+  }
+
+  static int geo_distance(double xi, double yi, double xj, double yj)
     /*
      * FUNCTION: geo_distance: computa la distancia geometrica (redondeada
      *           al siguiente entero) entre dos nodos
-     * INPUT: indices de dos nodos
+     * INPUT: coordenadas de dos nodos
      * OUTPUT: distancia entre dos nodos
      * COMMENTS: adaptada desde el codigo de concorde. Para una
-     *           definicion de como calcular esta distancia vea TSPLIB
+     *           definicion de como calcular esta distancia vea TSPLIB.
+     *           Para muchos pares conviene convertir una vez (ver geo_table)
      */
     {
-    double deg, min;
-    double lati, latj, longi, longj;
-    double q1, q2, q3;
-    int dd;
-    double x1 = nodeptr[i].x, x2 = nodeptr[j].x, y1 = nodeptr[i].y, y2 = nodeptr[j].y;
-       
-    deg = Utilities.dtrunc(x1);
-    min = x1 - deg;
-    lati = Math.PI * (deg + 5.0 * min / 3.0) / 180.0;
-    deg = Utilities.dtrunc(x2);
-    min = x2 - deg;
-    latj = Math.PI * (deg + 5.0 * min / 3.0) / 180.0;
-        
-    deg = Utilities.dtrunc(y1);
-    min = y1 - deg;
-    longi = Math.PI * (deg + 5.0 * min / 3.0) / 180.0;
-    deg = Utilities.dtrunc(y2);
-    min = y2 - deg;
-    longj = Math.PI * (deg + 5.0 * min / 3.0) / 180.0;
-        
-    q1 = Math.cos(longi - longj);
-    q2 = Math.cos(lati - latj);
-    q3 = Math.cos(lati + latj);
-    dd = (int) (6378.388 * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
-    return dd;
+    return geo_radians_distance(geo_radians(xi), geo_radians(yi),
+                                geo_radians(xj), geo_radians(yj));
+  }
+
+  static int geo_radians_distance(double lati, double longi, double latj, double longj)
+    /*
+     * FUNCTION: geo_radians_distance: formula de TSPLIB para la distancia GEO
+     * INPUT: latitud y longitud en radianes de dos nodos
+     * OUTPUT: distancia entre dos nodos
+     */
+    {
+    double q1 = Math.cos(longi - longj);
+    double q2 = Math.cos(lati - latj);
+    double q3 = Math.cos(lati + latj);
+    return (int) (6378.388 * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
   }
     
-  private int att_distance(int i, int j)
+  static int att_distance(double xi, double yi, double xj, double yj)
     /*
      * FUNCTION: att_distance: computa la distancia ATT (redondeada
      *           al siguiente entero) entre dos nodos
-     * INPUT: indices de dos nodos
+     * INPUT: coordenadas de dos nodos
      * OUTPUT: distancia entre dos nodos
      * COMMENTS: para una definicion de como calcular esta distancia vea
      *           TSPLIB
      */
     {
-    double xd = nodeptr[i].x - nodeptr[j].x;
-    double yd = nodeptr[i].y - nodeptr[j].y;
+    double xd = xi - xj;
+    double yd = yi - yj;
     double rij = Math.sqrt((xd * xd + yd * yd) / 10.0);
     double tij = Utilities.dtrunc(rij);
     int dij;
@@ -229,67 +785,238 @@ public class TSPlibReader {
     return dij;
   }
     
-  private void compute_distances()
+  static int compute_distance(Distance_type type, double xi, double yi, double xj, double yj)
+    /*
+     * FUNCTION: compute_distance: computa la distancia entre dos nodos
+     *           segun el tipo de instancia
+     * INPUT: tipo de distancia: type, coordenadas de dos nodos
+     * OUTPUT: distancia entre dos nodos
+     */
+    {
+    if (type == Distance_type.ATT) {
+      return att_distance(xi, yi, xj, yj);
+    } else if (type == Distance_type.CEIL_2D) {
+      return ceil_distance(xi, yi, xj, yj);
+    } else if (type == Distance_type.EUC_2D) {
+      return round_distance(xi, yi, xj, yj);
+    } else {
+      return geo_distance(xi, yi, xj, yj);
+    }
+  }
+
+  private boolean use_implicit()
+    /*
+     * FUNCTION: use_implicit: indica si las distancias se calculan bajo demanda
+     * INPUT: ninguno
+     * OUTPUT: TRUE si se usa el modo implicito, FALSE si se usa la matriz
+     */
+    {
+    if (storage == Distance_storage.IMPLICIT)
+      return true;
+    if (storage == Distance_storage.MATRIX || storage == Distance_storage.TRIANGULAR)
+      return false;
+    return n > implicit_threshold;
+  }
+
+  private int max_distance_bound()
+    /*
+     * FUNCTION: max_distance_bound: cota superior de la distancia entre dos nodos
+     * INPUT: ninguno
+     * OUTPUT: cota de la distancia maxima
+     * COMMENTS: EUC_2D, CEIL_2D y ATT crecen con la distancia euclidiana, por lo
+     *           que la distancia entre las esquinas del rectangulo que contiene
+     *           a los nodos es una cota. GEO esta acotada por media vuelta
+     *           a la tierra
+     */
+    {
+    if (distance_type == Distance_type.GEO)
+      return (int) (6378.388 * Math.PI + 1.0);
+    double minx = Double.MAX_VALUE, maxx = -Double.MAX_VALUE;
+    double miny = Double.MAX_VALUE, maxy = -Double.MAX_VALUE;
+    for (int i = 0; i < n; i++) {
+      minx = Math.min(minx, nodeptr[i].x);
+      maxx = Math.max(maxx, nodeptr[i].x);
+      miny = Math.min(miny, nodeptr[i].y);
+      maxy = Math.max(maxy, nodeptr[i].y);
+    }
+    return compute_distance(distance_type, minx, miny, maxx, maxy);
+  }
+
+  private boolean use_triangular()
+    /*
+     * FUNCTION: use_triangular: indica si la matriz guarda solo el triangulo superior
+     * INPUT: ninguno
+     * OUTPUT: TRUE si se usa la forma triangular, FALSE en otro caso
+     * COMMENTS: la forma triangular ocupa la mitad de memoria pero cada
+     *           acceso calcula su indice con min/max y una lectura extra del
+     *           inicio de la fila; con matrices pequeñas que caben en el
+     *           cache del procesador la matriz completa es mas rapida
+     */
+    {
+    if (storage == Distance_storage.TRIANGULAR)
+      return true;
+    if (storage != Distance_storage.AUTO || use_implicit())
+      return false;
+    return n > triangular_threshold;
+  }
+
+  private void renumber_nodes()
+    /*
+     * FUNCTION: renumber_nodes: renumera los nodos en el orden de la curva de Hilbert
+     * INPUT: ninguno
+     * OUTPUT: reordena nodeptr y guarda el numero original de cada nodo en original_id
+     * COMMENTS: debe llamarse antes de calcular distancias y vecinos
+     */
+    {
+    original_id = HilbertCurve.order(nodeptr);
+    point[] renumbered = new point[n];
+    for (int i = 0; i < n; i++)
+      renumbered[i] = nodeptr[original_id[i]];
+    nodeptr = renumbered;
+  };
+
+  private WritableDistanceMatrix compute_distances()
     /*
      * FUNCTION: compute_distances: computa las distancias entre todas los
      *           nodos
      * INPUT: ninguno
-     * OUTPUT: guarda las distancias en una matrix en la variable distance
+     * OUTPUT: guarda las distancias en una matrix en la variable distance y
+     *         la retorna (null en el modo implicito)
+     * COMMENTS: en el modo implicito solo se guardan las coordenadas y
+     *           las distancias se calculan bajo demanda. La matriz se
+     *           construye en paralelo por filas (ver DistanceTask); termina
+     *           con error si no cabe en un arreglo de Java
      */
     {
-    int i, j;
-    int matrix[][] = new int[n][n];
+    int i;
+    if (use_implicit()) {
+      distance = new ImplicitDistanceMatrix(nodeptr, distance_type);
+      return null;
+    }
+    long entries = use_triangular() ? TriangularDistanceMatrix.packed_size(n) : (long) n * n;
+    if (entries > Integer.MAX_VALUE) {
+      System.err.println("Error: la matriz de distancias de " + n + " nodos no cabe en un arreglo,"
+                         + (use_triangular() ? " use -dm implicit" : " use -dm half o -dm implicit"));
+      System.exit(1);
+    }
+    double[] x = new double[n];
+    double[] y = new double[n];
     for (i = 0; i < n; i++) {
-      for (j = 0; j < n; j++) {
-        if (distance_type == Distance_type.ATT) {
-          matrix[i][j] = att_distance(i, j);
-        } else if (distance_type == Distance_type.CEIL_2D) {
-          matrix[i][j] = ceil_distance(i, j);
-        } else if (distance_type == Distance_type.EUC_2D) {
-          matrix[i][j] = round_distance(i, j);
-        } else if (distance_type == Distance_type.GEO) {
-          matrix[i][j] = geo_distance(i, j);
-        }
-      }
+      x[i] = nodeptr[i].x;
+      y[i] = nodeptr[i].y;
+    }
+    geo_table geo = (distance_type == Distance_type.GEO) ? new geo_table(x, y) : null;
+    WritableDistanceMatrix matrix;
+    boolean narrow = adaptive_width && max_distance_bound() <= Character.MAX_VALUE;
+    if (use_triangular()) {
+      /* el triangulo superior es todo lo que se guarda, no hay copia */
+      matrix = narrow ? new TriangularCharDistanceMatrix(n) : new TriangularDistanceMatrix(n);
+      ForkJoinPool.commonPool().invoke(new DistanceTask(matrix, distance_type, x, y, geo, 0, n, false));
+    } else {
+      matrix = narrow ? new CharDistanceMatrix(n) : new IntDistanceMatrix(n);
+      ForkJoinPool.commonPool().invoke(new DistanceTask(matrix, distance_type, x, y, geo, 0, n, false));
+      ForkJoinPool.commonPool().invoke(new DistanceTask(matrix, distance_type, x, y, geo, 0, n, true));
     }
     distance = matrix;
+    return matrix;
   };
 
   private void compute_nn_lists()
   /*
-   * FUNCTION: compute_nn_lists: computa la lista de vecinos mas
-   *           cercanos de cada nodo
+   * FUNCTION: compute_nn_lists: computa la lista de candidatos (vecinos mas
+   *           cercanos) de cada nodo
    * INPUT: ninguno
+   * OUTPUT: guarda los nn_size vecinos mas cercanos en una matriz en la
+   *         variable nn_list
+   * COMMENTS: para distancias planas (EUC_2D, CEIL_2D, ATT) los vecinos se
+   *           obtienen desde un arbol k-d, las distancias GEO usan seleccion
+   *           parcial sobre todos los nodos
+   */
+  {
+      int i, k, node, nn, d, c;
+      nn = Math.min(nn_size, n - 1);
+      if (distance_type == Distance_type.GEO) {
+          compute_short_nn_lists(nn);
+          return;
+      }
+
+      double[] xs = new double[n];
+      double[] ys = new double[n];
+      for (i = 0; i < n; i++) {
+          xs[i] = nodeptr[i].x;
+          ys[i] = nodeptr[i].y;
+      }
+      KDTree tree = new KDTree(xs, ys);
+      int[] cand_d = new int[nn];
+      int[][] m_nnear = new int[n][];
+
+      for (node = 0; node < n; node++) {
+          int[] cand = tree.nearest(node, nn);
+          /* ordenar por la distancia entera (insercion, mantiene el orden
+             euclidiano en los empates) */
+          for (i = 0; i < cand.length; i++) {
+              c = cand[i];
+              d = distance.get(node, c);
+              k = i;
+              while (k > 0 && cand_d[k - 1] > d) {
+                  cand_d[k] = cand_d[k - 1];
+                  cand[k] = cand[k - 1];
+                  k--;
+              }
+              cand_d[k] = d;
+              cand[k] = c;
+          }
+          m_nnear[node] = cand;
+      }
+      nn_list = m_nnear;
+  };
+
+  private void compute_short_nn_lists(int nn)
+  /*
+   * FUNCTION: compute_short_nn_lists: computa solo los nn vecinos mas
+   *           cercanos de cada nodo
+   * INPUT: largo de las listas: nn
    * OUTPUT: guarda los vecinos mas cercanos en una matriz en la variable nn_list
+   * COMMENTS: seleccion parcial por insercion, no guarda la fila completa.
+   *           Es O(n^2) y solo se usa para distancias GEO
    */
   {
-      int i, node, nn;
-      int[] distance_vector = new int[n];
-      int[] help_vector = new int[n];
-      nn = n - 1;
+      int i, k, node, d;
+      int[] best_d = new int[nn];
       int[][] m_nnear = new int[n][nn];
-      
-      for (node = 0; node < n; node++) { /* compute cnd-sets for all node */
-          for (i = 0; i < n; i++) { /* Copy distances from nodes to the others */
-              distance_vector[i] = distance[node][i];
-              help_vector[i] = i;
-          }
-          distance_vector[node] = Integer.MAX_VALUE; /* city is not nearest neighbour */
-          Utilities.sort2(distance_vector, help_vector, 0, n - 1);
-          for (i = 0; i < nn; i++) {
-              m_nnear[node][i] = help_vector[i];
+
+      for (node = 0; node < n; node++) {
+          int[] best = m_nnear[node];
+          int size = 0;
+          for (i = 0; i < n; i++) {
+              if (i == node) continue;
+              d = distance.get(node, i);
+              if (size == nn && d >= best_d[nn - 1]) continue;
+              /* insertar manteniendo el orden */
+              k = (size < nn) ? size++ : nn - 1;
+              while (k > 0 && best_d[k - 1] > d) {
+                  best_d[k] = best_d[k - 1];
+                  best[k] = best[k - 1];
+                  k--;
+              }
+              best_d[k] = d;
+              best[k] = i;
           }
       }
       nn_list = m_nnear;
   };
 
-  public int[][] get_distance_matrix () {
+  public DistanceMatrix get_distance_matrix () {
 	  return(distance);
   };
   
   public int[][] get_nn () {
 	  return(nn_list);
   };
+
+  public int[] get_original_ids () {
+	  return(original_id);
+  };
   
   public int get_size() {
 	  return (n);
@@ -24,17 +24,47 @@ public class Tour {
   /* Movimientos de TSP disponibles
    *   TWO_OPT: operador 2-opt
    *   SWAP: operador swap
+   *   OR_OPT: mover un segmento de 1 a 3 nodos a otra posicion
+   *   OR2OPT: mover un segmento de 1 a 3 nodos invertido (3-opt restringido)
    */
   {
-      TWO_OPT, SWAP
+      TWO_OPT, SWAP, OR_OPT, OR2OPT
   };
    
+  /* tamaño desde el cual los movimientos 2-opt de randomNeighbor y de
+     twoOptLocalSearch se aplican sobre una lista de dos niveles (ver
+     TwoLevelList) */
+  static int list_threshold = 1000;
+  
+  /* cache de costos por huella, null si no se usa (ver FitnessCache) */
+  static FitnessCache fitness_cache = null;
+   
   /* instancia del tsp */
 	private static TSP problem;
+	/* matriz de distancias de la instancia */
+	private static DistanceMatrix distance;
 	
 	/* solucion actual */
 	private int [] current;
 	private long cost;
+	/* huella de las aristas del tour, se mantiene si TourHash.enabled */
+	private long hash;
+	/* indice inverso: pos[node] es la posicion de node en current, en [0,n) */
+	private int [] pos;
+	/* lista de dos niveles, se crea al primer uso. Mientras se aplican
+	   movimientos sobre la lista el arreglo queda desactualizado y se
+	   reconstruye recien cuando se lee: array_valid indica si current y
+	   pos estan al dia y list_valid si la lista lo esta */
+	private TwoLevelList list;
+	private boolean array_valid = true;
+	private boolean list_valid = false;
+	/* nodos por revisar en twoOptLocalSearch (cola circular) y si cada
+	   nodo esta en la cola, se crean al primer uso */
+	private int[] ls_queue;
+	private boolean[] ls_queued;
+	private int ls_head, ls_count;
+	/* TRUE si twoOptLocalSearch trabaja sobre la lista */
+	private boolean ls_list;
 	
 	public Tour (InitialSolution initial_sol, TSP _problem) {
     /*
@@ -43,6 +73,7 @@ public class Tour {
      *        del TSP: _problem
      */
 		problem = _problem;
+		distance = problem.get_distance_matrix();
 		
 		/* solucion inicial */
 		if (initial_sol==InitialSolution.RANDOM)
@@ -54,14 +85,9 @@ public class Tour {
 		else
 			current = problem.random_tour();
         
-		/* revisar el tour generado */
-		if (!problem.tsp_check_tour(current)) {
-			System.err.println("Error inicializando la solucion!");
-			System.exit(1);
-		}
-        
-		/* calcular costo */
-		cost = problem.compute_tour_length(current);
+		/* revisar el tour generado y calcular costo */
+		evaluate();
+		build_positions();
 	};
 	
 	public Tour (int[] tour, TSP _problem) {
@@ -71,20 +97,16 @@ public class Tour {
 	     *        del TSP: _problem
 	     */
 			problem = _problem;
+			distance = problem.get_distance_matrix();
 			
 			current = new int[tour.length];
 			for (int i=0; i<tour.length; i++) {
 				current[i]= tour[i];
 			}
 	        
-			/* revisar el tour generado */
-			if (!problem.tsp_check_tour(current)) {
-				System.err.println("Error inicializando la solucion!");
-				System.exit(1);
-			}
-	        
-			/* calcular costo */
-			cost = problem.compute_tour_length(current);
+			/* revisar el tour generado y calcular costo */
+			evaluate();
+			build_positions();
 		};
 		
 	public Tour(Tour _tour) {
@@ -92,8 +114,97 @@ public class Tour {
      * FUNCTION: Constructor de copia clase TSP
      */
 		problem = _tour.problem;
+		_tour.sync_array();
 		current = Arrays.copyOf(_tour.current, _tour.current.length);
 		cost    = _tour.cost;
+		hash    = _tour.hash;
+		pos     = Arrays.copyOf(_tour.pos, _tour.pos.length);
+	};
+	
+	private void build_positions()
+    /*
+     * FUNCTION: build_positions: construye el indice inverso de current
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     */
+	{
+		int n = current.length - 1;
+		pos = new int[n];
+		for (int i = 0; i < n; i++)
+			pos[current[i]] = i;
+	};
+	
+	private void evaluate()
+    /*
+     * FUNCTION: evaluate: revisa current y calcula su costo y su huella
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     * COMMENTS: la revision depende de TSP.validation y lanza
+     *           InvalidTourException si el tour no es valido. Si el costo
+     *           de un tour con la misma huella esta en fitness_cache no
+     *           se revisa ni se recalcula
+     */
+	{
+		int n = current.length - 1;
+		
+		if (TourHash.enabled) {
+			TourHash.init(n);
+			hash = TourHash.of(current, 0, n);
+			if (fitness_cache != null) {
+				cost = fitness_cache.get(hash);
+				if (cost >= 0) return;
+			}
+		}
+		
+		problem.validate_tour(current, 0);
+		cost = problem.compute_tour_length(current);
+		if (fitness_cache != null)
+			fitness_cache.put(hash, cost);
+	};
+	
+	static void set_problem(TSP _problem)
+    /*
+     * FUNCTION: set_problem: asigna la instancia usada por los movimientos
+     * INPUT: instancia del TSP: _problem
+     * OUTPUT: ninguno
+     * COMMENTS: los constructores la asignan; TourArena la necesita para
+     *           aplicar movimientos sobre sus filas sin crear un Tour
+     */
+	{
+		problem = _problem;
+		distance = problem.get_distance_matrix();
+	};
+	
+	private void sync_array()
+    /*
+     * FUNCTION: sync_array: actualiza current y pos desde la lista
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     * COMMENTS: no hace nada si el arreglo ya esta al dia
+     */
+	{
+		if (array_valid)
+			return;
+		list.to_array(current);
+		for (int i = 0; i < pos.length; i++)
+			pos[current[i]] = i;
+		array_valid = true;
+	};
+	
+	private void sync_list()
+    /*
+     * FUNCTION: sync_list: actualiza la lista desde current
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     * COMMENTS: no hace nada si la lista ya esta al dia
+     */
+	{
+		if (list_valid)
+			return;
+		if (list == null)
+			list = new TwoLevelList(pos.length);
+		list.build(current);
+		list_valid = true;
 	};
 	
 	public void Copy(Tour _tour) 
@@ -103,8 +214,31 @@ public class Tour {
      * OUTPUT: ninguno
      */
 	{
+		_tour.sync_array();
 		System.arraycopy(_tour.current, 0, current, 0, _tour.current.length);
+		System.arraycopy(_tour.pos, 0, pos, 0, _tour.pos.length);
 		cost = _tour.cost;
+		hash = _tour.hash;
+		array_valid = true;
+		list_valid = false;
+	};
+	
+	public void Copy(int[] tours, int offset, long _cost, long _hash) 
+    /* 
+     * FUNCTION: Copy: copia una solucion guardada como fila de un arreglo
+     * INPUT: arreglo que contiene la solucion: tours, posicion donde
+     *        comienza: offset, costo de la solucion: _cost, huella: _hash
+     * OUTPUT: ninguno
+     * COMMENTS: usado para copiar individuos de un TourArena
+     */
+	{
+		System.arraycopy(tours, offset, current, 0, current.length);
+		for (int i = 0; i < pos.length; i++)
+			pos[current[i]] = i;
+		cost = _cost;
+		hash = _hash;
+		array_valid = true;
+		list_valid = false;
 	};
 	
 	public long getCost () 
@@ -119,22 +253,45 @@ public class Tour {
 	};
 	
 	public void print() {
+		sync_array();
 		problem.print_solution_and_cost(current);
 	};
 	
 	public void lprint() {
+		sync_array();
 		problem.lprint_solution_and_cost(current);
 	};
 	
+	public long getHash () 
+    /* 
+     * FUNCTION: getHash
+     * INPUT: ninguno
+     * OUTPUT: huella del tour actual (0 si TourHash.enabled es false)
+     */
+	{
+		return(hash);
+	};
+	
+	public int getSize () 
+    /* 
+     * FUNCTION: getSize
+     * INPUT: ninguno
+     * OUTPUT: cantidad de nodos del tour
+     */
+	{
+		return(pos.length);
+	};
+	
 	public void printCost() {
 		System.out.print("cost: "+ cost);
 	};
 	
-    private long delta_cost_swap (int[] tour, long cost, int n1, int n2)
+    private static long delta_cost_swap (int[] tour, int off, long cost, int n1, int n2)
     /*
      * FUNCTION: delta_cost_swap: recalcula el nuevo costo de un tour despues
      *           de una aplicacion del movimiento swap
      * INPUT: arreglo del tour a modificar (sin haber sido modificado aun): tour,
+     *        posicion donde comienza el tour en el arreglo: off,
      *        el costo actual del tour: cost, indices de los nodos
      *        para hacer swap: n1 y n2
      * OUTPUT: el nuevo costo despues del swap.
@@ -163,22 +320,22 @@ public class Tour {
         
         /* Calculate new cost */
         if (s_prev != e) {
-            cost = cost - problem.get_distance(tour[s_prev], tour[s])
-                        - problem.get_distance(tour[e], tour[e_next])
-                        + problem.get_distance(tour[s_prev], tour[e])
-                        + problem.get_distance(tour[s], tour[e_next]);
+            cost = cost - distance.get(tour[off+s_prev], tour[off+s])
+                        - distance.get(tour[off+e], tour[off+e_next])
+                        + distance.get(tour[off+s_prev], tour[off+e])
+                        + distance.get(tour[off+s], tour[off+e_next]);
         } else {
-            cost = cost - problem.get_distance(tour[s], tour[s_next])
-                        - problem.get_distance(tour[e_prev], tour[e])
-                        + problem.get_distance(tour[e], tour[s_next])
-                        + problem.get_distance(tour[e_prev], tour[s]);
+            cost = cost - distance.get(tour[off+s], tour[off+s_next])
+                        - distance.get(tour[off+e_prev], tour[off+e])
+                        + distance.get(tour[off+e], tour[off+s_next])
+                        + distance.get(tour[off+e_prev], tour[off+s]);
         }
         
         if (s_next!=e_prev && s_next!=e && s_prev != e) {
-            cost = cost - problem.get_distance(tour[s], tour[s_next])
-                        - problem.get_distance(tour[e_prev], tour[e])
-                        + problem.get_distance(tour[e], tour[s_next])
-                        + problem.get_distance(tour[e_prev], tour[s]);
+            cost = cost - distance.get(tour[off+s], tour[off+s_next])
+                        - distance.get(tour[off+e_prev], tour[off+e])
+                        + distance.get(tour[off+e], tour[off+s_next])
+                        + distance.get(tour[off+e_prev], tour[off+s]);
         }
 
         return cost;
@@ -189,21 +346,45 @@ public class Tour {
      * FUNCTION: swap: aplica el operador swap entre dos nodos
      * INPUT:  indices de dos nodos para set intercambiados con swap: n1 y n2
      * OUTPUT: ninguno
-     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost)
+     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost).
+     *          El costo se calcula antes de modificar el tour, que se
+     *          modifica en el lugar
+     */
+    {
+        sync_array();
+        list_valid = false;
+        if (TourHash.enabled)
+            hash = TourHash.delta_swap(current, 0, hash, n1, n2, pos.length);
+        cost = swap_row(current, 0, pos, cost, n1, n2);
+        //assert cost == problem.compute_tour_length(current);
+    };
+    
+    static long swap_row (int[] tour, int off, int[] pos, long cost, int n1, int n2)
+    /*
+     * FUNCTION: swap_row: aplica el operador swap a un tour guardado a
+     *           partir de tour[off]
+     * INPUT: arreglo que contiene el tour: tour, posicion donde comienza: off,
+     *        indice inverso del tour o null si no se mantiene: pos,
+     *        costo actual: cost, indices de los nodos: n1 y n2
+     * OUTPUT: el nuevo costo despues del swap
+     * COMMENT: usado por swap y por TourArena sobre sus filas
      */
     {
-        int[] tour = Arrays.copyOf(current, current.length);
         int aux;
+        int n = problem.getSize();
         
-        /* do swap */
-        aux = tour[n1];
-        tour[n1] = tour[n2];
-        tour[n2] = aux;
-        tour[tour.length-1] = tour[0];
+        cost = delta_cost_swap (tour, off, cost, n1, n2);
         
-        cost = delta_cost_swap (current, cost, n1, n2);
-        //assert current_cost == problem.compute_tour_length(tour);
-        System.arraycopy(tour, 0, current, 0, tour.length);
+        /* do swap */
+        aux = tour[off+n1];
+        tour[off+n1] = tour[off+n2];
+        tour[off+n2] = aux;
+        tour[off+n] = tour[off];
+        if (pos != null) {
+            pos[tour[off+n1]] = n1;
+            pos[tour[off+n2]] = n2;
+        }
+        return cost;
     };
 
     public void random_swap ()
@@ -224,12 +405,33 @@ public class Tour {
         /* do swap */
         swap(n1,n2);
     };
+    
+    static long random_swap_pair ()
+    /*
+     * FUNCTION: random_swap_pair: elige dos indices para un swap aleatorio
+     * INPUT: ninguno
+     * OUTPUT: n1 en los 32 bits altos y n2 en los bajos
+     * COMMENT: consume los mismos numeros aleatorios que random_swap,
+     *          usado por TourArena
+     */
+    {
+        int n1 = Utilities.random_n(problem.getSize());
+        int n2 = n1;
+        
+        while (n2 == n1) {
+        	n2 =  Utilities.random_n(problem.getSize());
+        }
+        
+        return ((long) n1 << 32) | n2;
+    };
   
-    private long delta_cost_two_opt (int[] tour, long cost, int s, int e)
+    private static long delta_cost_two_opt (int[] tour, int off, long cost, int s, int e)
     /*
      * FUNCTION: recalcula el nuevo costo de un tour despues
      *           de una aplicacion del movimiento 2-opt
-     * INPUT: indices de dos nodos para set intercambiados con 2-opt: s y e
+     * INPUT: arreglo del tour: tour, posicion donde comienza: off, costo
+     *        actual: cost, indices de dos nodos para set intercambiados
+     *        con 2-opt: s y e
      * OUTPUT: el nuevo costo despues de 2-opt.
      * COMMENT: esta funcion no modifica el tour actual
      */
@@ -247,10 +449,10 @@ public class Tour {
             s_prev = problem.getSize() - 1;
         }
 
-        cost = cost - problem.get_distance(tour[s_prev], tour[s])
-                    - problem.get_distance(tour[e], tour[e_next])
-                    + problem.get_distance(tour[s_prev], tour[e])
-                    + problem.get_distance(tour[s], tour[e_next]);
+        cost = cost - distance.get(tour[off+s_prev], tour[off+s])
+                    - distance.get(tour[off+e], tour[off+e_next])
+                    + distance.get(tour[off+s_prev], tour[off+e])
+                    + distance.get(tour[off+s], tour[off+e_next]);
         return cost;
     };
 	
@@ -259,42 +461,72 @@ public class Tour {
      * FUNCTION: twoOptSwap: aplica movimiento 2-opt entre 2 nodos
      * INPUT: indices de dos nodos para set intercambiados con 2-opt: n1 y n2
      * OUTPUT: ninguno
-     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost)
+     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost).
      */
     {
-        int s, e, aux;
-        int[] new_tour = new int[current.length]; /* tour nuevo */
+        sync_array();
+        list_valid = false;
+        if (TourHash.enabled)
+            hash = TourHash.delta_two_opt(current, 0, hash, n1, n2, pos.length);
+        cost = two_opt_row(current, 0, pos, cost, n1, n2);
+        //assert cost == problem.compute_tour_length(current);
+    };
+    
+    static long two_opt_row (int[] tour, int off, int[] pos, long cost, int n1, int n2)
+    /*
+     * FUNCTION: two_opt_row: aplica movimiento 2-opt a un tour guardado
+     *           a partir de tour[off]
+     * INPUT: arreglo que contiene el tour: tour, posicion donde comienza: off,
+     *        indice inverso del tour o null si no se mantiene: pos,
+     *        costo actual: cost, indices de los nodos: n1 y n2
+     * OUTPUT: el nuevo costo despues del movimiento
+     * COMMENT: Invertir [s,e] o invertir el resto del ciclo [e+1,s-1] da el
+     *          mismo tour recorrido en sentidos opuestos, por lo que se
+     *          invierte en el lugar el lado mas corto
+     */
+    {
+        int s, e, i, j, aux;
+        int n = problem.getSize();
         
         /* no es posible aplicar el movimiento en el mismo nodo */
-        if (n1 == n2) return;
+        if (n1 == n2) return cost;
         /* indice fuera de los limites */
-        if (n1 >= problem.getSize() || n2 >= problem.getSize()) return;
-        if (n1 < 0 || n2 < 0) return;
+        if (n1 >= n || n2 >= n) return cost;
+        if (n1 < 0 || n2 < 0) return cost;
         
         /* identificar el indice mas pequeño */
         s = Math.min(n1,n2);
         e = Math.max(n1,n2);
         
-        /* copiar la primera parte del tour no modificado por 2-opt */
-        for (int i=0; i < s; i++)
-            new_tour[i] = current[i];
-
-        /* invertir el orden del tour entre [s,e] */
-        aux = 0;
-        for (int i=s; i <=e; i++) {
-            new_tour[i] = current[e-aux]; /* intercambia nodos */
-            aux = aux + 1;
-        }
-
-        /* copiar la parte final del tour no modificado por 2-opt */
-        for (int i=(e+1); i < current.length; i++)
-            new_tour[i] = current[i];
-
-        new_tour[current.length-1] = new_tour[0];
+        cost = delta_cost_two_opt (tour, off, cost, s, e);
         
-        cost = delta_cost_two_opt (current, cost, s, e);
-        //assert current_cost == problem.compute_tour_length(new_tour);
-        System.arraycopy(new_tour, 0, current, 0, new_tour.length);
+        if (2 * (e - s + 1) <= n) {
+            /* invertir el orden del tour entre [s,e] */
+            for (i = s, j = e; i < j; i++, j--) {
+                aux = tour[off+i];
+                tour[off+i] = tour[off+j];
+                tour[off+j] = aux;
+                if (pos != null) {
+                    pos[tour[off+i]] = i;
+                    pos[tour[off+j]] = j;
+                }
+            }
+        } else {
+            /* invertir el resto del ciclo, desde e+1 hasta s-1 dando la vuelta */
+            for (i = e + 1, j = s - 1 + n; i < j; i++, j--) {
+                int ii = (i < n) ? i : i - n;
+                int jj = (j < n) ? j : j - n;
+                aux = tour[off+ii];
+                tour[off+ii] = tour[off+jj];
+                tour[off+jj] = aux;
+                if (pos != null) {
+                    pos[tour[off+ii]] = ii;
+                    pos[tour[off+jj]] = jj;
+                }
+            }
+        }
+        tour[off+n] = tour[off];
+        return cost;
     };
 	
     public void random_two_opt ()
@@ -312,7 +544,512 @@ public class Tour {
         	n2 =  Utilities.random_n(problem.getSize());
         }
         
-        twoOptSwap(n1, n2);
+        /* si la lista esta al dia se sigue usando, una posicion aleatoria
+           equivale a un nodo aleatorio */
+        if (list_valid && !array_valid)
+            list_two_opt(n1, n2);
+        else
+            twoOptSwap(n1, n2);
+    };
+    
+    static long random_two_opt_pair ()
+    /*
+     * FUNCTION: random_two_opt_pair: elige dos indices para un 2-opt aleatorio
+     * INPUT: ninguno
+     * OUTPUT: n1 en los 32 bits altos y n2 en los bajos
+     * COMMENT: consume los mismos numeros aleatorios que random_two_opt,
+     *          usado por TourArena
+     */
+    {
+        int n1 = Utilities.random_n(problem.getSize());
+        int n2 = n1;
+        
+        while (n2 == n1 | Math.abs(n2-n1) < 2 ) {
+        	n2 =  Utilities.random_n(problem.getSize());
+        }
+        
+        return ((long) n1 << 32) | n2;
+    };
+    
+    private static long delta_cost_or_opt (int[] tour, int off, long cost, int s, int len, int j, boolean reversed)
+    /*
+     * FUNCTION: recalcula el nuevo costo de un tour despues
+     *           de una aplicacion del movimiento or-opt
+     * INPUT: arreglo del tour: tour, posicion donde comienza: off, costo
+     *        actual: cost, primera posicion del segmento: s, largo del
+     *        segmento: len, posicion despues de la cual se inserta: j,
+     *        si el segmento se inserta invertido: reversed
+     * OUTPUT: el nuevo costo despues del movimiento.
+     * COMMENT: esta funcion no modifica el tour actual. Con p y nx los
+     *          vecinos del segmento [f..l] y (a,b) la arista donde se
+     *          inserta, cambia (p,f), (l,nx) y (a,b) por (p,nx) y
+     *          (a,f),(l,b) o, invertido, (a,l),(f,b). El movimiento
+     *          debe ser valido (ver or_opt_gap)
+     */
+    {
+        int n = problem.getSize();
+        int p  = tour[off + ((s == 0) ? n - 1 : s - 1)];
+        int f  = tour[off + s];
+        int l  = tour[off + (s + len - 1) % n];
+        int nx = tour[off + (s + len) % n];
+        int a  = tour[off + j];
+        int b  = tour[off + j + 1];
+        
+        cost = cost - distance.get(p, f) - distance.get(l, nx) - distance.get(a, b)
+                    + distance.get(p, nx);
+        if (reversed)
+            cost = cost + distance.get(a, l) + distance.get(f, b);
+        else
+            cost = cost + distance.get(a, f) + distance.get(l, b);
+        return cost;
+    };
+    
+    static int or_opt_gap (int s, int len, int j, int n)
+    /*
+     * FUNCTION: or_opt_gap: revisa un movimiento or-opt
+     * INPUT: primera posicion del segmento: s, largo: len, posicion
+     *        despues de la cual se inserta: j, cantidad de nodos: n
+     * OUTPUT: cantidad de nodos entre el final del segmento y j (incluido),
+     *         o 0 si el movimiento no es valido o no cambia el tour
+     * COMMENT: j no puede estar en el segmento ni ser la posicion anterior
+     */
+    {
+        int gap;
+        if (len < 1 || len > 3 || n < len + 3) return 0;
+        if (s < 0 || s >= n || j < 0 || j >= n) return 0;
+        gap = (j - (s + len - 1) + n) % n;
+        if (gap < 1 || gap > n - len - 1) return 0;
+        return gap;
+    };
+    
+    public void orOpt (int s, int len, int j)
+    /*
+     * FUNCTION: orOpt: mueve un segmento del tour a otra posicion
+     * INPUT: primera posicion del segmento: s, largo del segmento (1 a 3): len,
+     *        posicion despues de la cual se inserta: j
+     * OUTPUT: ninguno
+     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost).
+     */
+    {
+        or_opt(s, len, j, false);
+    };
+    
+    public void or2Opt (int s, int len, int j)
+    /*
+     * FUNCTION: or2Opt: mueve un segmento del tour invertido a otra posicion
+     * INPUT: primera posicion del segmento: s, largo del segmento (1 a 3): len,
+     *        posicion despues de la cual se inserta: j
+     * OUTPUT: ninguno
+     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost).
+     */
+    {
+        or_opt(s, len, j, true);
+    };
+    
+    private void or_opt (int s, int len, int j, boolean reversed)
+    /*
+     * FUNCTION: or_opt: aplica or-opt u or2opt sobre current
+     * INPUT: ver or_opt_row
+     * OUTPUT: ninguno
+     */
+    {
+        sync_array();
+        list_valid = false;
+        if (TourHash.enabled)
+            hash = TourHash.delta_or_opt(current, 0, hash, s, len, j, reversed, pos.length);
+        cost = or_opt_row(current, 0, pos, cost, s, len, j, reversed);
+        //assert cost == problem.compute_tour_length(current);
+    };
+    
+    static long or_opt_row (int[] tour, int off, int[] pos, long cost, int s, int len, int j, boolean reversed)
+    /*
+     * FUNCTION: or_opt_row: mueve un segmento de un tour guardado a partir
+     *           de tour[off]
+     * INPUT: arreglo que contiene el tour: tour, posicion donde comienza: off,
+     *        indice inverso del tour o null si no se mantiene: pos, costo
+     *        actual: cost, primera posicion del segmento: s, largo (1 a 3): len,
+     *        posicion despues de la cual se inserta: j, si el segmento se
+     *        inserta invertido: reversed
+     * OUTPUT: el nuevo costo despues del movimiento
+     * COMMENT: los nodos entre el segmento y j se desplazan len posiciones;
+     *          como el tour es un ciclo se desplaza el lado mas corto, hacia
+     *          atras los que siguen al segmento o hacia adelante los que lo
+     *          preceden
+     */
+    {
+        int n = problem.getSize();
+        int gap = or_opt_gap(s, len, j, n);
+        int v0, v1, v2, k, from, to, start;
+        
+        if (gap == 0) return cost;
+        cost = delta_cost_or_opt(tour, off, cost, s, len, j, reversed);
+        
+        /* guardar el segmento */
+        v0 = tour[off + s];
+        v1 = tour[off + (s + 1) % n];
+        v2 = tour[off + (s + 2) % n];
+        
+        if (gap <= n - len - gap) {
+            /* los gap nodos despues del segmento retroceden len posiciones */
+            to = s;
+            from = s + len;
+            if (from >= n) from -= n;
+            for (k = 0; k < gap; k++) {
+                tour[off + to] = tour[off + from];
+                if (pos != null) pos[tour[off + to]] = to;
+                if (++to == n) to = 0;
+                if (++from == n) from = 0;
+            }
+            start = to;
+        } else {
+            /* los nodos entre j y el segmento avanzan len posiciones */
+            to = s + len - 1;
+            if (to >= n) to -= n;
+            from = (s == 0) ? n - 1 : s - 1;
+            for (k = 0; k < n - len - gap; k++) {
+                tour[off + to] = tour[off + from];
+                if (pos != null) pos[tour[off + to]] = to;
+                if (--to < 0) to = n - 1;
+                if (--from < 0) from = n - 1;
+            }
+            start = j + 1;
+            if (start >= n) start -= n;
+        }
+        
+        /* escribir el segmento desde start */
+        if (reversed) {
+            k = v0;
+            if (len == 2) { v0 = v1; v1 = k; }
+            if (len == 3) { v0 = v2; v2 = k; }
+        }
+        for (k = 0; k < len; k++) {
+            int v = (k == 0) ? v0 : (k == 1) ? v1 : v2;
+            tour[off + start] = v;
+            if (pos != null) pos[v] = start;
+            if (++start == n) start = 0;
+        }
+        tour[off + n] = tour[off];
+        return cost;
+    };
+    
+    public void random_or_opt (boolean reversed)
+    /*
+     * FUNCTION: random_or_opt: aplica or-opt (u or2opt si reversed) con
+     *           un segmento y una posicion aleatorios
+     * INPUT: si el segmento se inserta invertido: reversed
+     * OUTPUT: ninguno
+     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo (cost)
+     */
+    {
+        long m = random_or_opt_move();
+        if (m >= 0)
+            or_opt((int) (m >>> 32), (int) (m >>> 30) & 3, (int) m & 0x3FFFFFFF, reversed);
+    };
+    
+    static long random_or_opt_move ()
+    /*
+     * FUNCTION: random_or_opt_move: elige un movimiento or-opt aleatorio
+     * INPUT: ninguno
+     * OUTPUT: s en los 32 bits altos, len en los bits 30-31 y j en los
+     *         30 bits bajos, o -1 si la instancia es muy pequeña
+     * COMMENT: usado por random_or_opt y TourArena
+     */
+    {
+        int n = problem.getSize();
+        int s, len, j;
+        
+        if (n < 6) return -1;
+        len = 1 + Utilities.random_n(3);
+        s = Utilities.random_n(n);
+        do {
+            j = Utilities.random_n(n);
+        } while (or_opt_gap(s, len, j, n) == 0);
+        
+        return ((long) s << 32) | ((long) len << 30) | j;
+    };
+    
+    public long swapDelta (int n1, int n2)
+    /*
+     * FUNCTION: swapDelta: evalua un swap sin aplicarlo
+     * INPUT: indices de los nodos: n1 y n2
+     * OUTPUT: diferencia de costo que produciria swap(n1, n2)
+     * COMMENT: no modifica el tour (ver moveDelta)
+     */
+    {
+        return moveDelta(TSPMove.SWAP, n1, n2, 0);
+    };
+    
+    public long twoOptDelta (int n1, int n2)
+    /*
+     * FUNCTION: twoOptDelta: evalua un 2-opt sin aplicarlo
+     * INPUT: indices de los nodos: n1 y n2
+     * OUTPUT: diferencia de costo que produciria twoOptSwap(n1, n2)
+     * COMMENT: no modifica el tour (ver moveDelta)
+     */
+    {
+        return moveDelta(TSPMove.TWO_OPT, n1, n2, 0);
+    };
+    
+    public long orOptDelta (int s, int len, int j)
+    /*
+     * FUNCTION: orOptDelta: evalua un or-opt sin aplicarlo
+     * INPUT: primera posicion del segmento: s, largo: len, posicion
+     *        despues de la cual se inserta: j
+     * OUTPUT: diferencia de costo que produciria orOpt(s, len, j)
+     * COMMENT: no modifica el tour (ver moveDelta)
+     */
+    {
+        return moveDelta(TSPMove.OR_OPT, s, j, len);
+    };
+    
+    public long or2OptDelta (int s, int len, int j)
+    /*
+     * FUNCTION: or2OptDelta: evalua un or2opt sin aplicarlo
+     * INPUT: primera posicion del segmento: s, largo: len, posicion
+     *        despues de la cual se inserta: j
+     * OUTPUT: diferencia de costo que produciria or2Opt(s, len, j)
+     * COMMENT: no modifica el tour (ver moveDelta)
+     */
+    {
+        return moveDelta(TSPMove.OR2OPT, s, j, len);
+    };
+    
+    public long moveDelta (TSPMove move, int n1, int n2, int len)
+    /*
+     * FUNCTION: moveDelta: evalua un movimiento sin aplicarlo
+     * INPUT: tipo de movimiento: move, indices n1 y n2 (para OR_OPT y
+     *        OR2OPT n1 es la primera posicion del segmento y n2 la posicion
+     *        despues de la cual se inserta), largo del segmento: len (solo
+     *        OR_OPT y OR2OPT)
+     * OUTPUT: diferencia entre el costo despues del movimiento y el actual,
+     *         0 si el movimiento no cambia el tour
+     * COMMENT: no modifica el tour ni crea objetos, por lo que se pueden
+     *          evaluar muchos candidatos y aplicar solo el elegido con
+     *          applyMove. Si el tour se modifico con list_two_opt primero
+     *          se actualiza el arreglo
+     */
+    {
+        sync_array();
+        return move_delta_row(current, 0, move, n1, n2, len);
+    };
+    
+    public void applyMove (TSPMove move, int n1, int n2, int len)
+    /*
+     * FUNCTION: applyMove: aplica un movimiento evaluado con moveDelta
+     * INPUT: los mismos parametros de moveDelta
+     * OUTPUT: ninguno
+     * COMMENT: esta funcion modica el tour de la clase (tour) y el costo
+     *          (cost), que cambia exactamente en moveDelta(move, n1, n2, len)
+     */
+    {
+        if (move == TSPMove.TWO_OPT)
+            twoOptSwap(n1, n2);
+        else if (move == TSPMove.OR_OPT)
+            orOpt(n1, len, n2);
+        else if (move == TSPMove.OR2OPT)
+            or2Opt(n1, len, n2);
+        else
+            swap(n1, n2);
+    };
+    
+    static long move_delta_row (int[] tour, int off, TSPMove move, int n1, int n2, int len)
+    /*
+     * FUNCTION: move_delta_row: evalua un movimiento sobre un tour guardado
+     *           a partir de tour[off] sin aplicarlo
+     * INPUT: arreglo que contiene el tour: tour, posicion donde comienza: off,
+     *        movimiento y parametros: ver moveDelta
+     * OUTPUT: diferencia de costo del movimiento
+     * COMMENT: revisa los mismos casos sin efecto que swap_row, two_opt_row
+     *          y or_opt_row, usado por Tour y TourArena
+     */
+    {
+        int n = problem.getSize();
+        
+        if (move == TSPMove.OR_OPT || move == TSPMove.OR2OPT) {
+            if (or_opt_gap(n1, len, n2, n) == 0) return 0;
+            return delta_cost_or_opt(tour, off, 0, n1, len, n2, move == TSPMove.OR2OPT);
+        }
+        /* indice fuera de los limites */
+        if (n1 >= n || n2 >= n) return 0;
+        if (n1 < 0 || n2 < 0) return 0;
+        if (move == TSPMove.TWO_OPT)
+            return delta_cost_two_opt(tour, off, 0, Math.min(n1, n2), Math.max(n1, n2));
+        return delta_cost_swap(tour, off, 0, n1, n2);
+    };
+    
+    public void list_two_opt (int a, int c)
+    /*
+     * FUNCTION: list_two_opt: aplica un movimiento 2-opt dado por dos nodos
+     *           sobre la lista de dos niveles
+     * INPUT: nodos a y c
+     * OUTPUT: ninguno
+     * COMMENT: cambia las aristas (a,next(a)) y (c,next(c)) por (a,c) y
+     *          (next(a),next(c)) en O(sqrt(n)). El arreglo del tour se
+     *          actualiza recien cuando se lee
+     */
+    {
+        int b, d;
+        
+        sync_list();
+        b = list.next(a);
+        d = list.next(c);
+        if (a == c || b == c || d == a) return;
+        
+        cost = cost - distance.get(a, b) - distance.get(c, d)
+                    + distance.get(a, c) + distance.get(b, d);
+        if (TourHash.enabled)
+            hash = hash - TourHash.edge(a, b) - TourHash.edge(c, d)
+                        + TourHash.edge(a, c) + TourHash.edge(b, d);
+        list.reverse(b, c);
+        array_valid = false;
+    };
+    
+    public void twoOptLocalSearch ()
+    /*
+     * FUNCTION: twoOptLocalSearch: aplica movimientos 2-opt que mejoran
+     *           el tour hasta que ningun nodo por revisar encuentra uno
+     * INPUT: ninguno
+     * OUTPUT: ninguno
+     * COMMENT: para cada nodo a y su vecino b en el tour se prueban como
+     *          c los vecinos cercanos de a (nn_list) mas cercanos que b.
+     *          Un nodo se vuelve a revisar solo si cambia una de sus
+     *          aristas (bits don't-look), por lo que una segunda llamada
+     *          puede encontrar algunas mejoras mas. En instancias de
+     *          list_threshold nodos o mas los movimientos se aplican
+     *          sobre la lista de dos niveles, en otro caso sobre el
+     *          arreglo invirtiendo el lado mas corto
+     */
+    {
+        int n = problem.getSize();
+        int[][] nn_list = problem.get_nn_list();
+        int a;
+        
+        if (ls_queue == null) {
+            ls_queue = new int[n];
+            ls_queued = new boolean[n];
+        }
+        ls_list = n >= list_threshold;
+        if (ls_list)
+            sync_list();
+        else
+            sync_array();
+        for (int i = 0; i < n; i++) {
+            ls_queue[i] = i;
+            ls_queued[i] = true;
+        }
+        ls_head = 0;
+        ls_count = n;
+        
+        while (ls_count > 0) {
+            a = ls_queue[ls_head];
+            ls_head = (ls_head + 1 == n) ? 0 : ls_head + 1;
+            ls_count--;
+            ls_queued[a] = false;
+            
+            for (int dir = 0; dir < 2; dir++) {
+                int b = (dir == 0) ? ls_next(a) : ls_prev(a);
+                int dab = distance.get(a, b);
+                for (int c : nn_list[a]) {
+                    int dac = distance.get(a, c);
+                    if (dac >= dab) break;
+                    int d = (dir == 0) ? ls_next(c) : ls_prev(c);
+                    if (c == b || d == a) continue;
+                    long delta = (long) dac + distance.get(b, d) - dab - distance.get(c, d);
+                    if (delta >= 0) continue;
+                    
+                    /* (a,b),(c,d) pasan a ser (a,c),(b,d) */
+                    cost += delta;
+                    if (TourHash.enabled)
+                        hash = hash - TourHash.edge(a, b) - TourHash.edge(c, d)
+                                    + TourHash.edge(a, c) + TourHash.edge(b, d);
+                    if (dir == 0)
+                        ls_reverse(b, c);
+                    else
+                        ls_reverse(a, d);
+                    
+                    ls_push(a);
+                    ls_push(b);
+                    ls_push(c);
+                    ls_push(d);
+                    break;
+                }
+                if (ls_queued[a]) break;
+            }
+        }
+        if (ls_list) {
+            array_valid = false;
+        } else {
+            list_valid = false;
+        }
+    };
+    
+    private void ls_push (int v)
+    /*
+     * FUNCTION: ls_push: agrega un nodo a la cola de twoOptLocalSearch
+     * INPUT: nodo: v
+     * OUTPUT: ninguno
+     * COMMENT: no hace nada si el nodo ya esta en la cola
+     */
+    {
+        if (ls_queued[v]) return;
+        ls_queued[v] = true;
+        ls_queue[(ls_head + ls_count) % ls_queue.length] = v;
+        ls_count++;
+    };
+    
+    private int ls_next (int v)
+    /*
+     * FUNCTION: ls_next: sucesor de v en twoOptLocalSearch
+     * INPUT: nodo: v
+     * OUTPUT: nodo siguiente en el tour
+     */
+    {
+        return ls_list ? list.next(v) : current[pos[v] + 1];
+    };
+    
+    private int ls_prev (int v)
+    /*
+     * FUNCTION: ls_prev: predecesor de v en twoOptLocalSearch
+     * INPUT: nodo: v
+     * OUTPUT: nodo anterior en el tour
+     */
+    {
+        if (ls_list) return list.prev(v);
+        int p = pos[v];
+        return current[(p == 0) ? pos.length - 1 : p - 1];
+    };
+    
+    private void ls_reverse (int x, int y)
+    /*
+     * FUNCTION: ls_reverse: invierte el camino del tour que va de x a y
+     * INPUT: nodos extremos del camino: x, y
+     * OUTPUT: ninguno
+     * COMMENT: sobre el arreglo se invierte el camino o su complemento,
+     *          el que sea mas corto, lo que da el mismo ciclo
+     */
+    {
+        if (ls_list) {
+            list.reverse(x, y);
+            return;
+        }
+        int n = pos.length;
+        int i = pos[x], j = pos[y];
+        int len = (j - i + n) % n + 1;
+        if (2 * len > n) {
+            i = (j + 1 == n) ? 0 : j + 1;
+            j = (pos[x] == 0) ? n - 1 : pos[x] - 1;
+            len = n - len;
+        }
+        for (int k = 0; k < len / 2; k++) {
+            int u = current[i], v = current[j];
+            current[i] = v;
+            pos[v] = i;
+            current[j] = u;
+            pos[u] = j;
+            i = (i + 1 == n) ? 0 : i + 1;
+            j = (j == 0) ? n - 1 : j - 1;
+        }
+        current[n] = current[0];
     };
     
     public void randomNeighbor (TSPMove move_type) 
@@ -330,9 +1067,17 @@ public class Tour {
         while (n1 == n2)
             n2 =Utilities.random_n(problem.getSize());
         
-        /* Select heuristic operator for movement */
-        if (move_type == TSPMove.TWO_OPT)
+        /* Select heuristic operator for movement. En instancias grandes
+           los movimientos consecutivos se aplican sobre la lista de dos
+           niveles, n1 y n2 se usan como nodos */
+        if (move_type == TSPMove.TWO_OPT && problem.getSize() >= list_threshold)
+            list_two_opt(n1, n2);
+        else if (move_type == TSPMove.TWO_OPT)
             twoOptSwap(n1, n2);
+        else if (move_type == TSPMove.OR_OPT)
+            random_or_opt(false);
+        else if (move_type == TSPMove.OR2OPT)
+            random_or_opt(true);
         else if (move_type == TSPMove.SWAP)
         	swap(n1, n2);
         else
@@ -340,13 +1085,13 @@ public class Tour {
     };
     
     public int getPosition (int node) {
-    	for (int i=0; i<problem.getSize(); i++) {
-    		if (current[i] == node) return(i);
-    	}
-    	return(-1);
+    	/* O(1): swap y twoOptSwap mantienen el indice inverso */
+    	if (!array_valid) sync_array();
+    	return(pos[node]);
     };
 
     public int getNode (int pos) {
+    	if (!array_valid) sync_array();
     	return (current[pos]);
     };
 
@@ -0,0 +1,307 @@
+package algorithms;
+/* TourArena class
+* Almacen de tours de una poblacion como estructura de arreglos: todos
+* los tours viven en un unico arreglo int de capacity*(n+1) casillas, la
+* fila r ocupa [r*(n+1), (r+1)*(n+1)), y sus costos en un arreglo long
+* paralelo. Las filas se reutilizan de una generacion a otra, por lo que
+* crear hijos, mutarlos y seleccionarlos no crea objetos
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+import java.util.Arrays;
+
+public class TourArena {
+
+	/* instancia del tsp */
+	private static TSP problem;
+
+	/* tamaño de la instancia y largo de una fila (n+1) */
+	int n;
+	int stride;
+
+	/* cantidad de filas reservadas */
+	int capacity;
+
+	/* tours: fila r en tours[r*stride .. r*stride+n] */
+	int[] tours;
+
+	/* costo del tour de cada fila */
+	long[] cost;
+
+	/* huella de cada fila, se mantiene si TourHash.enabled */
+	long[] hash;
+
+	/* fila auxiliar para imprimir y crear objetos Tour */
+	private int[] buffer;
+
+	public TourArena (int _capacity, TSP _problem)
+    /*
+     * FUNCTION: Constructor clase TourArena
+     * INPUT: cantidad de filas a reservar: _capacity, instancia del TSP: _problem
+     */
+	{
+		problem = _problem;
+		Tour.set_problem(problem);
+		n = problem.getSize();
+		stride = n + 1;
+		capacity = _capacity;
+		tours = new int[capacity * stride];
+		cost = new long[capacity];
+		hash = new long[capacity];
+		buffer = new int[stride];
+		if (TourHash.enabled)
+			TourHash.init(n);
+	};
+
+	public void grow (int min_capacity)
+    /*
+     * FUNCTION: grow: aumenta la cantidad de filas reservadas
+     * INPUT: cantidad minima de filas: min_capacity
+     * OUTPUT: ninguno
+     * COMMENTS: al menos duplica la capacidad para que crecer sea poco
+     *           frecuente; el contenido de las filas se conserva
+     */
+	{
+		if (min_capacity <= capacity)
+			return;
+		capacity = Math.max(min_capacity, 2 * capacity);
+		tours = Arrays.copyOf(tours, capacity * stride);
+		cost = Arrays.copyOf(cost, capacity);
+		hash = Arrays.copyOf(hash, capacity);
+	};
+
+	public int offset (int row)
+    /*
+     * FUNCTION: offset: posicion donde comienza una fila en tours
+     * INPUT: fila: row
+     * OUTPUT: row*(n+1)
+     */
+	{
+		return row * stride;
+	};
+
+	public void set (int row, int[] tour)
+    /*
+     * FUNCTION: set: guarda un tour en una fila
+     * INPUT: fila: row, tour de tamaño n+1: tour
+     * OUTPUT: ninguno
+     * COMMENTS: revisa el tour y calcula su costo (ver evaluate)
+     */
+	{
+		System.arraycopy(tour, 0, tours, row * stride, stride);
+		evaluate(row);
+	};
+
+	public void set (int row, Tour tour)
+    /*
+     * FUNCTION: set: guarda un objeto Tour en una fila
+     * INPUT: fila: row, solucion: tour
+     * OUTPUT: ninguno
+     */
+	{
+		int off = row * stride;
+		for (int i = 0; i < stride; i++)
+			tours[off + i] = tour.getNode(i);
+		cost[row] = tour.getCost();
+		hash[row] = tour.getHash();
+	};
+
+	public void copy (int row, TourArena src, int src_row)
+    /*
+     * FUNCTION: copy: copia una fila de otro almacen (o del mismo)
+     * INPUT: fila destino: row, almacen origen: src, fila origen: src_row
+     * OUTPUT: ninguno
+     */
+	{
+		System.arraycopy(src.tours, src_row * stride, tours, row * stride, stride);
+		cost[row] = src.cost[src_row];
+		hash[row] = src.hash[src_row];
+	};
+
+	public void evaluate (int row)
+    /*
+     * FUNCTION: evaluate: revisa el tour de una fila y calcula su costo
+     *           (y su huella si TourHash.enabled)
+     * INPUT: fila: row
+     * OUTPUT: ninguno
+     * COMMENTS: equivalente a construir un Tour con el arreglo de la fila,
+     *           incluida la consulta a Tour.fitness_cache
+     */
+	{
+		int off = row * stride;
+		FitnessCache fitness_cache = Tour.fitness_cache;
+		
+		if (TourHash.enabled) {
+			hash[row] = TourHash.of(tours, off, n);
+			if (fitness_cache != null) {
+				cost[row] = fitness_cache.get(hash[row]);
+				if (cost[row] >= 0) return;
+			}
+		}
+		
+		problem.validate_tour(tours, off);
+		cost[row] = problem.compute_tour_length(tours, off);
+		if (fitness_cache != null)
+			fitness_cache.put(hash[row], cost[row]);
+	};
+
+	public void accept (int row, long _cost)
+    /*
+     * FUNCTION: accept: registra el tour de una fila con un costo ya
+     *           calculado
+     * INPUT: fila: row, costo del tour: _cost
+     * OUTPUT: ninguno
+     * COMMENTS: para operadores que calculan el costo del hijo en forma
+     *           incremental; el tour se revisa segun TSP.validation y se
+     *           calcula su huella, pero no se recorre para sumar distancias
+     */
+	{
+		int off = row * stride;
+		problem.validate_tour(tours, off);
+		cost[row] = _cost;
+		if (TourHash.enabled)
+			hash[row] = TourHash.of(tours, off, n);
+	};
+
+	public void swap (int row, int n1, int n2)
+    /*
+     * FUNCTION: swap: aplica el operador swap al tour de una fila
+     * INPUT: fila: row, indices de los nodos: n1 y n2
+     * OUTPUT: ninguno
+     */
+	{
+		int off = row * stride;
+		if (TourHash.enabled)
+			hash[row] = TourHash.delta_swap(tours, off, hash[row], n1, n2, n);
+		cost[row] = Tour.swap_row(tours, off, null, cost[row], n1, n2);
+	};
+
+	public void random_swap (int row)
+    /*
+     * FUNCTION: random_swap: aplica el operador swap entre dos nodos
+     *           aleatorios al tour de una fila
+     * INPUT: fila: row
+     * OUTPUT: ninguno
+     */
+	{
+		long p = Tour.random_swap_pair();
+		swap(row, (int) (p >>> 32), (int) p);
+	};
+
+	public void two_opt (int row, int n1, int n2)
+    /*
+     * FUNCTION: two_opt: aplica movimiento 2-opt al tour de una fila
+     * INPUT: fila: row, indices de los nodos: n1 y n2
+     * OUTPUT: ninguno
+     */
+	{
+		int off = row * stride;
+		if (TourHash.enabled)
+			hash[row] = TourHash.delta_two_opt(tours, off, hash[row], n1, n2, n);
+		cost[row] = Tour.two_opt_row(tours, off, null, cost[row], n1, n2);
+	};
+
+	public void random_two_opt (int row)
+    /*
+     * FUNCTION: random_two_opt: aplica el operador two_opt entre dos nodos
+     *           aleatorios al tour de una fila
+     * INPUT: fila: row
+     * OUTPUT: ninguno
+     */
+	{
+		long p = Tour.random_two_opt_pair();
+		two_opt(row, (int) (p >>> 32), (int) p);
+	};
+
+	public void or_opt (int row, int s, int len, int j, boolean reversed)
+    /*
+     * FUNCTION: or_opt: mueve un segmento del tour de una fila a otra
+     *           posicion, invertido si reversed (or2opt)
+     * INPUT: fila: row, primera posicion del segmento: s, largo (1 a 3): len,
+     *        posicion despues de la cual se inserta: j, si se invierte: reversed
+     * OUTPUT: ninguno
+     */
+	{
+		int off = row * stride;
+		if (TourHash.enabled)
+			hash[row] = TourHash.delta_or_opt(tours, off, hash[row], s, len, j, reversed, n);
+		cost[row] = Tour.or_opt_row(tours, off, null, cost[row], s, len, j, reversed);
+	};
+
+	public void random_or_opt (int row, boolean reversed)
+    /*
+     * FUNCTION: random_or_opt: aplica or-opt (u or2opt si reversed) con un
+     *           segmento y una posicion aleatorios al tour de una fila
+     * INPUT: fila: row, si el segmento se invierte: reversed
+     * OUTPUT: ninguno
+     */
+	{
+		long m = Tour.random_or_opt_move();
+		if (m >= 0)
+			or_opt(row, (int) (m >>> 32), (int) (m >>> 30) & 3, (int) m & 0x3FFFFFFF, reversed);
+	};
+
+	public long move_delta (int row, Tour.TSPMove move, int n1, int n2, int len)
+    /*
+     * FUNCTION: move_delta: evalua un movimiento sobre el tour de una fila
+     *           sin aplicarlo
+     * INPUT: fila: row, movimiento y parametros: ver Tour.moveDelta
+     * OUTPUT: diferencia de costo del movimiento
+     */
+	{
+		return Tour.move_delta_row(tours, row * stride, move, n1, n2, len);
+	};
+
+	public void apply_move (int row, Tour.TSPMove move, int n1, int n2, int len)
+    /*
+     * FUNCTION: apply_move: aplica un movimiento al tour de una fila
+     * INPUT: fila: row, movimiento y parametros: ver Tour.moveDelta
+     * OUTPUT: ninguno
+     */
+	{
+		if (move == Tour.TSPMove.TWO_OPT)
+			two_opt(row, n1, n2);
+		else if (move == Tour.TSPMove.OR_OPT)
+			or_opt(row, n1, len, n2, false);
+		else if (move == Tour.TSPMove.OR2OPT)
+			or_opt(row, n1, len, n2, true);
+		else
+			swap(row, n1, n2);
+	};
+
+	public Tour get (int row)
+    /*
+     * FUNCTION: get: crea un objeto Tour con la solucion de una fila
+     * INPUT: fila: row
+     * OUTPUT: nuevo Tour
+     */
+	{
+		System.arraycopy(tours, row * stride, buffer, 0, stride);
+		return new Tour(buffer, problem);
+	};
+
+	public void print (int row)
+    /*
+     * FUNCTION: print: imprime la solucion de una fila y su costo
+     * INPUT: fila: row
+     * OUTPUT: ninguno
+     */
+	{
+		System.arraycopy(tours, row * stride, buffer, 0, stride);
+		problem.print_solution_and_cost(buffer);
+	};
+
+	public void lprint (int row)
+    /*
+     * FUNCTION: lprint: imprime la solucion de una fila y su costo en
+     *           una linea
+     * INPUT: fila: row
+     * OUTPUT: ninguno
+     */
+	{
+		System.arraycopy(tours, row * stride, buffer, 0, stride);
+		problem.lprint_solution_and_cost(buffer);
+	};
+}
@@ -0,0 +1,200 @@
+package algorithms;
+/* TourCodec class
+* Codificacion compacta de tours para guardarlos en archivos o en memoria.
+* Se guarda n, el primer nodo y la diferencia entre cada nodo y el
+* anterior, llevada a (-n/2, n/2] y codificada en zig-zag como varint
+* (7 bits por byte, el bit alto indica que sigue otro byte). En un tour
+* aleatorio cada nodo usa 2 bytes hasta 16384 nodos; en un buen tour los
+* nodos consecutivos suelen tener numeros cercanos si la numeracion sigue
+* la posicion de las ciudades, como la interna con -rn (ver HilbertCurve)
+*
+* Los metodos sobre objetos Tour (encode, decode, write y read) guardan
+* los nodos con su numero en el archivo de la instancia, igual que print,
+* por lo que un tour guardado con -rn se lee igual sin -rn. Los metodos
+* sobre arreglos guardan los numeros tal como vienen
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+* Formato: varint n, varint primer nodo, n-1 varint zig-zag de las
+*          diferencias. El tour se recupera en el mismo orden, incluida
+*          la posicion inicial
+*/
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class TourCodec {
+
+	static int max_size (int n)
+    /*
+     * FUNCTION: max_size: largo maximo de un tour codificado
+     * INPUT: cantidad de nodos: n
+     * OUTPUT: cantidad de bytes
+     */
+	{
+		return 5 * (n + 1);
+	};
+
+	static int encode (int[] tour, int off, int n, byte[] out, int at)
+    /*
+     * FUNCTION: encode: codifica un tour guardado a partir de tour[off]
+     * INPUT: arreglo que contiene el tour: tour, posicion donde comienza: off,
+     *        cantidad de nodos: n, arreglo de salida: out, posicion donde
+     *        escribir: at
+     * OUTPUT: posicion siguiente al ultimo byte escrito
+     * COMMENTS: out debe tener al menos max_size(n) bytes desde at
+     */
+	{
+		int d;
+		at = put(out, at, n);
+		if (n == 0) return at;
+		at = put(out, at, tour[off]);
+		for (int i = off + 1; i < off + n; i++) {
+			d = tour[i] - tour[i - 1];
+			if (d > n / 2) d -= n;
+			else if (d <= -n / 2 - (n & 1)) d += n;
+			at = put(out, at, (d << 1) ^ (d >> 31));
+		}
+		return at;
+	};
+
+	public static byte[] encode (Tour tour, TSP problem)
+    /*
+     * FUNCTION: encode: codifica un tour con los numeros de nodo del
+     *           archivo de la instancia
+     * INPUT: solucion: tour, instancia del TSP: problem
+     * OUTPUT: arreglo con el tour codificado, de largo justo
+     */
+	{
+		int n = tour.getSize();
+		int[] nodes = new int[n + 1];
+		byte[] out = new byte[max_size(n)];
+		for (int i = 0; i <= n; i++)
+			nodes[i] = problem.original_node(tour.getNode(i));
+		return java.util.Arrays.copyOf(out, encode(nodes, 0, n, out, 0));
+	};
+
+	static int decode (byte[] data, int at, int[] tour, int off, int n)
+    /*
+     * FUNCTION: decode: decodifica un tour en tour[off]
+     * INPUT: datos codificados: data, posicion donde comienza el tour: at,
+     *        arreglo de salida: tour, posicion donde escribir: off,
+     *        cantidad de nodos esperada: n
+     * OUTPUT: posicion siguiente al ultimo byte leido
+     * COMMENTS: escribe n+1 nodos (el ultimo igual al primero). Lanza
+     *           InvalidTourException si los datos estan truncados o no
+     *           corresponden a n nodos; no revisa que sea una permutacion
+     */
+	{
+		int z, v;
+		long r = get(data, at);
+		if ((int) r != n)
+			throw new InvalidTourException("tour codificado de " + (int) r + " nodos, se esperaban " + n);
+		at = (int) (r >>> 32);
+		if (n == 0) return at;
+		r = get(data, at);
+		v = (int) r;
+		at = (int) (r >>> 32);
+		if (v < 0 || v >= n)
+			throw new InvalidTourException("nodo " + v + " fuera de rango en tour codificado");
+		tour[off] = v;
+		for (int i = off + 1; i < off + n; i++) {
+			r = get(data, at);
+			z = (int) r;
+			at = (int) (r >>> 32);
+			v += (z >>> 1) ^ -(z & 1);
+			if (v < 0) v += n;
+			else if (v >= n) v -= n;
+			if (v < 0 || v >= n)
+				throw new InvalidTourException("nodo fuera de rango en tour codificado");
+			tour[i] = v;
+		}
+		tour[off + n] = tour[off];
+		return at;
+	};
+
+	public static Tour decode (byte[] data, TSP problem)
+    /*
+     * FUNCTION: decode: decodifica un tour
+     * INPUT: datos codificados: data, instancia del TSP: problem
+     * OUTPUT: nuevo Tour en la numeracion interna, con su costo calculado
+     * COMMENTS: los datos tienen los numeros de nodo del archivo (ver
+     *           encode). El tour se revisa siempre, sin importar
+     *           TSP.validation, porque los datos pueden venir de un
+     *           archivo danado
+     */
+	{
+		int n = problem.getSize();
+		int[] nodes = new int[n + 1];
+		decode(data, 0, nodes, 0, n);
+		if (!problem.tsp_check_tour(nodes))
+			throw new InvalidTourException("tour codificado no es una permutacion de los nodos");
+		for (int i = 0; i <= n; i++)
+			nodes[i] = problem.internal_node(nodes[i]);
+		return new Tour(nodes, problem);
+	};
+
+	public static void write (DataOutput out, Tour tour, TSP problem) throws IOException
+    /*
+     * FUNCTION: write: escribe un tour codificado precedido por su largo
+     * INPUT: salida: out, solucion: tour, instancia del TSP: problem
+     * OUTPUT: ninguno
+     */
+	{
+		byte[] data = encode(tour, problem);
+		out.writeInt(data.length);
+		out.write(data);
+	};
+
+	public static Tour read (DataInput in, TSP problem) throws IOException
+    /*
+     * FUNCTION: read: lee un tour escrito con write
+     * INPUT: entrada: in, instancia del TSP: problem
+     * OUTPUT: nuevo Tour
+     */
+	{
+		int length = in.readInt();
+		if (length < 0 || length > max_size(problem.getSize()))
+			throw new InvalidTourException("largo " + length + " no valido en tour codificado");
+		byte[] data = new byte[length];
+		in.readFully(data);
+		return decode(data, problem);
+	};
+
+	private static int put (byte[] out, int at, int value)
+    /*
+     * FUNCTION: put: escribe un entero sin signo como varint
+     * INPUT: arreglo de salida: out, posicion: at, valor: value
+     * OUTPUT: posicion siguiente al ultimo byte escrito
+     */
+	{
+		while ((value & ~0x7F) != 0) {
+			out[at++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out[at++] = (byte) value;
+		return at;
+	};
+
+	private static long get (byte[] data, int at)
+    /*
+     * FUNCTION: get: lee un varint
+     * INPUT: datos: data, posicion: at
+     * OUTPUT: posicion siguiente en los 32 bits altos y valor en los bajos
+     * COMMENTS: lanza InvalidTourException si el varint esta truncado
+     *           o tiene mas de 5 bytes
+     */
+	{
+		int value = 0, b;
+		for (int shift = 0; shift < 35; shift += 7) {
+			if (at >= data.length)
+				throw new InvalidTourException("tour codificado truncado");
+			b = data[at++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return ((long) at << 32) | (value & 0xFFFFFFFFL);
+		}
+		throw new InvalidTourException("varint no valido en tour codificado");
+	};
+}
@@ -0,0 +1,167 @@
+package algorithms;
+/* TourHash class
+* Huella de un tour como suma de claves aleatorias de sus aristas. La
+* clave de la arista (u,v) es mix64(key[u] + key[v]), simetrica en u y v,
+* y la suma no depende del nodo inicial ni del sentido del recorrido, por
+* lo que dos tours tienen la misma huella si tienen las mismas aristas.
+* Un movimiento cambia pocas aristas y la huella se actualiza restando
+* las claves de las eliminadas y sumando las de las agregadas
+*
+* @autor  Leslie Perez Caceres
+* @version 1.0
+*
+*/
+
+public class TourHash {
+
+	/* mantener la huella en Tour y TourArena */
+	static boolean enabled = false;
+
+	/* clave aleatoria de cada nodo */
+	private static long[] key;
+
+	static void init (int n)
+    /*
+     * FUNCTION: init: genera las claves de los nodos
+     * INPUT: cantidad de nodos: n
+     * OUTPUT: ninguno
+     * COMMENTS: las claves no usan el generador de Utilities para no
+     *           cambiar la secuencia aleatoria del algoritmo
+     */
+	{
+		if (key != null && key.length == n)
+			return;
+		key = new long[n];
+		for (int i = 0; i < n; i++)
+			key[i] = mix64(0x9E3779B97F4A7C15L * (i + 1));
+	};
+
+	static long mix64 (long z)
+    /*
+     * FUNCTION: mix64: funcion de mezcla de 64 bits (splitmix64)
+     * INPUT: valor: z
+     * OUTPUT: valor mezclado
+     */
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	};
+
+	static long edge (int u, int v)
+    /*
+     * FUNCTION: edge: clave de la arista (u,v)
+     * INPUT: nodos: u, v
+     * OUTPUT: clave, igual para (u,v) y (v,u)
+     */
+	{
+		return mix64(key[u] + key[v]);
+	};
+
+	static long of (int[] tour, int off, int n)
+    /*
+     * FUNCTION: of: calcula la huella de un tour
+     * INPUT: arreglo que contiene el tour: tour, posicion donde
+     *        comienza: off, cantidad de nodos: n
+     * OUTPUT: huella del tour
+     */
+	{
+		long h = 0;
+		for (int i = off; i < off + n; i++)
+			h += edge(tour[i], tour[i + 1]);
+		return h;
+	};
+
+	static long delta_swap (int[] tour, int off, long h, int n1, int n2, int n)
+    /*
+     * FUNCTION: delta_swap: huella del tour despues del movimiento swap
+     * INPUT: arreglo del tour (sin modificar): tour, posicion donde
+     *        comienza: off, huella actual: h, indices de los nodos: n1 y n2,
+     *        cantidad de nodos: n
+     * OUTPUT: la nueva huella
+     * COMMENTS: mismos casos que Tour.delta_cost_swap
+     */
+	{
+		int s, e, s_prev, s_next, e_prev, e_next;
+		if (n1 == n2) return h;
+
+		s = Math.min(n1, n2);
+		e = Math.max(n1, n2);
+		s_prev = (s == 0) ? n - 1 : s - 1;
+		s_next = s + 1;
+		e_prev = e - 1;
+		e_next = (e == n - 1) ? 0 : e + 1;
+
+		if (s_prev != e) {
+			h = h - edge(tour[off+s_prev], tour[off+s])
+			      - edge(tour[off+e], tour[off+e_next])
+			      + edge(tour[off+s_prev], tour[off+e])
+			      + edge(tour[off+s], tour[off+e_next]);
+		} else {
+			h = h - edge(tour[off+s], tour[off+s_next])
+			      - edge(tour[off+e_prev], tour[off+e])
+			      + edge(tour[off+e], tour[off+s_next])
+			      + edge(tour[off+e_prev], tour[off+s]);
+		}
+		if (s_next != e_prev && s_next != e && s_prev != e) {
+			h = h - edge(tour[off+s], tour[off+s_next])
+			      - edge(tour[off+e_prev], tour[off+e])
+			      + edge(tour[off+e], tour[off+s_next])
+			      + edge(tour[off+e_prev], tour[off+s]);
+		}
+		return h;
+	};
+
+	static long delta_two_opt (int[] tour, int off, long h, int n1, int n2, int n)
+    /*
+     * FUNCTION: delta_two_opt: huella del tour despues del movimiento 2-opt
+     * INPUT: arreglo del tour (sin modificar): tour, posicion donde
+     *        comienza: off, huella actual: h, indices de los nodos: n1 y n2,
+     *        cantidad de nodos: n
+     * OUTPUT: la nueva huella
+     * COMMENTS: mismos casos que Tour.two_opt_row
+     */
+	{
+		int s, e, s_prev;
+		if (n1 == n2) return h;
+		if (n1 >= n || n2 >= n) return h;
+		if (n1 < 0 || n2 < 0) return h;
+
+		s = Math.min(n1, n2);
+		e = Math.max(n1, n2);
+		if (s == 0 && e == n - 1) return h;
+		s_prev = (s == 0) ? n - 1 : s - 1;
+
+		return h - edge(tour[off+s_prev], tour[off+s])
+		         - edge(tour[off+e], tour[off+e+1])
+		         + edge(tour[off+s_prev], tour[off+e])
+		         + edge(tour[off+s], tour[off+e+1]);
+	};
+
+	static long delta_or_opt (int[] tour, int off, long h, int s, int len, int j, boolean reversed, int n)
+    /*
+     * FUNCTION: delta_or_opt: huella del tour despues del movimiento or-opt
+     * INPUT: arreglo del tour (sin modificar): tour, posicion donde
+     *        comienza: off, huella actual: h, primera posicion del
+     *        segmento: s, largo: len, posicion despues de la cual se
+     *        inserta: j, si se inserta invertido: reversed, cantidad de nodos: n
+     * OUTPUT: la nueva huella
+     * COMMENTS: mismas aristas que Tour.delta_cost_or_opt
+     */
+	{
+		int p, f, l, nx, a, b;
+		if (Tour.or_opt_gap(s, len, j, n) == 0) return h;
+
+		p  = tour[off + ((s == 0) ? n - 1 : s - 1)];
+		f  = tour[off + s];
+		l  = tour[off + (s + len - 1) % n];
+		nx = tour[off + (s + len) % n];
+		a  = tour[off + j];
+		b  = tour[off + j + 1];
+
+		h = h - edge(p, f) - edge(l, nx) - edge(a, b) + edge(p, nx);
+		if (reversed)
+			return h + edge(a, l) + edge(f, b);
+		return h + edge(a, f) + edge(l, b);
+	};
+}
@@ -0,0 +1,52 @@
+package algorithms;
+/* TriangularCharDistanceMatrix class
+ * Matriz de distancias simetrica guardada como triangulo superior
+ * (ver TriangularDistanceMatrix) con 16 bits sin signo por distancia
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public class TriangularCharDistanceMatrix extends WritableDistanceMatrix {
+    /* distancias: la distancia de i a j (i <= j) esta en distance[row_start[i]+j] */
+    private final char[] distance;
+    /* inicio de cada fila del triangulo, desplazado en -i */
+    private final int[] row_start;
+
+    public TriangularCharDistanceMatrix (int _n)
+    /*
+     * FUNCTION: Constructor clase TriangularCharDistanceMatrix
+     * INPUT: numero de nodos: _n
+     */
+    {
+        super(_n);
+        row_start = TriangularDistanceMatrix.row_starts(_n);
+        distance = new char[(int) TriangularDistanceMatrix.packed_size(_n)];
+    };
+
+    @Override
+    public boolean is_triangular () {
+        return true;
+    };
+
+    @Override
+    public int entry_bytes () {
+        return 2;
+    };
+
+    @Override
+    public int get (int i, int j) {
+        return distance[row_start[Math.min(i, j)] + Math.max(i, j)];
+    };
+
+    @Override
+    public void set (int i, int j, int value) {
+        if (value < 0 || value > Character.MAX_VALUE)
+            throw new IllegalArgumentException("distancia " + value + " no cabe en 16 bits");
+        if (i <= j)
+            distance[row_start[i] + j] = (char) value;
+        else
+            distance[row_start[j] + i] = (char) value;
+    };
+}
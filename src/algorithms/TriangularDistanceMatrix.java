@@ -0,0 +1,76 @@
+package algorithms;
+/* TriangularDistanceMatrix class
+ * Matriz de distancias simetrica guardada como triangulo superior
+ * (incluida la diagonal) en un unico arreglo de enteros
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public class TriangularDistanceMatrix extends WritableDistanceMatrix {
+    /* distancias: la distancia de i a j (i <= j) esta en distance[row_start[i]+j] */
+    private final int[] distance;
+    /* inicio de cada fila del triangulo, desplazado en -i */
+    private final int[] row_start;
+
+    public TriangularDistanceMatrix (int _n)
+    /*
+     * FUNCTION: Constructor clase TriangularDistanceMatrix
+     * INPUT: numero de nodos: _n
+     */
+    {
+        super(_n);
+        row_start = row_starts(_n);
+        distance = new int[(int) packed_size(_n)];
+    };
+
+    static long packed_size (int n)
+    /*
+     * FUNCTION: packed_size: cantidad de distancias del triangulo superior
+     * INPUT: numero de nodos: n
+     * OUTPUT: n(n+1)/2
+     */
+    {
+        return (long) n * (n + 1) / 2;
+    };
+
+    static int[] row_starts (int n)
+    /*
+     * FUNCTION: row_starts: calcula el indice de inicio de cada fila
+     * INPUT: numero de nodos: n
+     * OUTPUT: arreglo tal que la distancia (i,j), i <= j, esta en row_start[i]+j
+     * COMMENTS: la fila i guarda n-i distancias, desde la columna i. Los
+     *           indices son int, por lo que el triangulo debe caber en un
+     *           arreglo de Java
+     */
+    {
+        if (packed_size(n) > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("matriz triangular de " + n + " nodos demasiado grande");
+        int[] start = new int[n];
+        for (int i = 0; i < n; i++)
+            start[i] = (int) ((long) i * n - (long) i * (i - 1) / 2 - i);
+        return start;
+    };
+
+    @Override
+    public boolean is_triangular () {
+        return true;
+    };
+
+    @Override
+    public int get (int i, int j) {
+        /* min/max se compilan sin saltos: con tours renumerados (ver
+           HilbertCurve) el orden de i y j es predecible solo en parte y
+           un salto condicional se equivoca seguido */
+        return distance[row_start[Math.min(i, j)] + Math.max(i, j)];
+    };
+
+    @Override
+    public void set (int i, int j, int value) {
+        if (i <= j)
+            distance[row_start[i] + j] = value;
+        else
+            distance[row_start[j] + i] = value;
+    };
+}
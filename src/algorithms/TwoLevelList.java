@@ -0,0 +1,493 @@
+package algorithms;
+/* TwoLevelList class
+ * Tour representado como una lista doblemente enlazada de dos niveles:
+ * los nodos se agrupan en segmentos de ~sqrt(n) nodos y cada segmento
+ * tiene un bit de inversion. Invertir un camino (movimiento 2-opt)
+ * corta a lo mas dos segmentos, moviendo la parte mas pequeña al segmento
+ * vecino, e invierte el orden de los segmentos del camino, en O(sqrt(n))
+ * en vez de O(n). next, prev y between son O(1)
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public class TwoLevelList {
+    /* numero de nodos */
+    private final int n;
+    /* tamaño de los segmentos al construir la lista */
+    private final int group;
+    /* segmentos disponibles, al agotarse se reconstruye la lista */
+    private final int max_segments;
+    /* los rank crecen o decrecen al mover nodos entre segmentos, sobre este
+       valor se reconstruye la lista */
+    private static final int RANK_LIMIT = 1 << 30;
+    private boolean rank_overflow;
+
+    /* nodos: segmento, posicion y enlaces dentro del segmento. Los enlaces
+       y la posicion (rank) estan en el orden "crudo" del segmento, que es
+       el orden del tour si el segmento no esta invertido */
+    private final int[] seg;
+    private final int[] rank;
+    private final int[] suc;
+    private final int[] pred;
+
+    /* segmentos: extremos crudos (first tiene el menor rank), bit de
+       inversion, tamaño, enlaces en el orden del tour y orden en el tour */
+    private final int[] s_first;
+    private final int[] s_last;
+    private final boolean[] s_rev;
+    private final int[] s_size;
+    private final int[] s_suc;
+    private final int[] s_pred;
+    private final int[] s_rank;
+    private int segments;
+    /* segmento con s_rank 0 */
+    private int s_head;
+    /* FALSE si se creo un segmento y falta recalcular s_rank */
+    private boolean ranks_valid;
+
+    /* espacio de trabajo */
+    private final int[] buffer;
+
+    public TwoLevelList (int _n)
+    /*
+     * FUNCTION: Constructor clase TwoLevelList
+     * INPUT: numero de nodos: _n
+     * COMMENTS: la lista queda vacia hasta llamar a build
+     */
+    {
+        n = _n;
+        group = Math.max(8, (int) Math.sqrt(n));
+        /* cada movimiento crea a lo mas dos segmentos nuevos */
+        max_segments = 2 * ((n + group - 1) / group) + 2;
+        seg = new int[n];
+        rank = new int[n];
+        suc = new int[n];
+        pred = new int[n];
+        s_first = new int[max_segments];
+        s_last = new int[max_segments];
+        s_rev = new boolean[max_segments];
+        s_size = new int[max_segments];
+        s_suc = new int[max_segments];
+        s_pred = new int[max_segments];
+        s_rank = new int[max_segments];
+        buffer = new int[Math.max(n + 1, max_segments)];
+    };
+
+    public void build (int[] tour)
+    /*
+     * FUNCTION: build: construye la lista desde un arreglo
+     * INPUT: tour como arreglo, se usan las posiciones [0,n)
+     * OUTPUT: ninguno
+     */
+    {
+        segments = 0;
+        for (int start = 0; start < n; start += group) {
+            int p = segments++;
+            int end = Math.min(start + group, n);
+            s_first[p] = tour[start];
+            s_last[p] = tour[end - 1];
+            s_size[p] = end - start;
+            s_rev[p] = false;
+            s_rank[p] = p;
+            for (int k = start; k < end; k++) {
+                int v = tour[k];
+                seg[v] = p;
+                rank[v] = k;
+                suc[v] = (k + 1 < end) ? tour[k + 1] : -1;
+                pred[v] = (k > start) ? tour[k - 1] : -1;
+            }
+        }
+        for (int p = 0; p < segments; p++) {
+            s_suc[p] = (p + 1 < segments) ? p + 1 : 0;
+            s_pred[p] = (p > 0) ? p - 1 : segments - 1;
+        }
+        s_head = 0;
+        ranks_valid = true;
+        rank_overflow = false;
+    };
+
+    public void to_array (int[] tour)
+    /*
+     * FUNCTION: to_array: escribe el tour en un arreglo
+     * INPUT: arreglo de tamaño n+1 donde escribir el tour
+     * OUTPUT: ninguno
+     * COMMENTS: el tour comienza en el primer nodo del segmento s_head y
+     *           tour[n] = tour[0]
+     */
+    {
+        int k = 0;
+        int p = s_head;
+        do {
+            if (s_rev[p]) {
+                for (int v = s_last[p]; ; v = pred[v]) {
+                    tour[k++] = v;
+                    if (v == s_first[p]) break;
+                }
+            } else {
+                for (int v = s_first[p]; ; v = suc[v]) {
+                    tour[k++] = v;
+                    if (v == s_last[p]) break;
+                }
+            }
+            p = s_suc[p];
+        } while (p != s_head);
+        tour[n] = tour[0];
+    };
+
+    private int head (int p) {
+        return s_rev[p] ? s_last[p] : s_first[p];
+    };
+
+    private int tail (int p) {
+        return s_rev[p] ? s_first[p] : s_last[p];
+    };
+
+    public int next (int v)
+    /*
+     * FUNCTION: next: sucesor de un nodo en el tour
+     * INPUT: nodo v
+     * OUTPUT: nodo siguiente a v
+     */
+    {
+        int p = seg[v];
+        if (v == tail(p))
+            return head(s_suc[p]);
+        return s_rev[p] ? pred[v] : suc[v];
+    };
+
+    public int prev (int v)
+    /*
+     * FUNCTION: prev: predecesor de un nodo en el tour
+     * INPUT: nodo v
+     * OUTPUT: nodo anterior a v
+     */
+    {
+        int p = seg[v];
+        if (v == head(p))
+            return tail(s_pred[p]);
+        return s_rev[p] ? suc[v] : pred[v];
+    };
+
+    private int offset (int v)
+    /*
+     * FUNCTION: offset: cantidad de nodos antes de v en su segmento
+     * INPUT: nodo v
+     * OUTPUT: posicion de v en su segmento siguiendo el tour
+     */
+    {
+        int p = seg[v];
+        return s_rev[p] ? rank[s_last[p]] - rank[v] : rank[v] - rank[s_first[p]];
+    };
+
+    private long key (int v) {
+        return ((long) s_rank[seg[v]] << 32) | offset(v);
+    };
+
+    public boolean between (int a, int b, int c)
+    /*
+     * FUNCTION: between: indica si b esta en el camino de a hacia c
+     * INPUT: nodos a, b, c
+     * OUTPUT: TRUE si recorriendo el tour desde a se llega a b antes
+     *         (o al mismo tiempo) que a c
+     */
+    {
+        long ka = key(a), kb = key(b), kc = key(c);
+        if (ka <= kc)
+            return ka <= kb && kb <= kc;
+        return kb >= ka || kb <= kc;
+    };
+
+    public void reverse (int b, int c)
+    /*
+     * FUNCTION: reverse: invierte el camino del tour que va de b a c
+     * INPUT: primer y ultimo nodo del camino: b, c
+     * OUTPUT: ninguno
+     * COMMENTS: con a = prev(b) y d = next(c) cambia las aristas (a,b) y
+     *           (c,d) por (a,c) y (b,d), es decir un movimiento 2-opt.
+     *           Invertir el camino o su complemento da el mismo ciclo, se
+     *           invierte el lado con menos segmentos
+     */
+    {
+        if (b == c)
+            return;
+        if (segments + 2 > max_segments || rank_overflow) {
+            /* demasiados segmentos, o posiciones que crecen sin limite: reconstruir */
+            to_array(buffer);
+            build(buffer);
+        }
+        if (seg[b] == seg[c]) {
+            if (offset(b) <= offset(c)) {
+                reverse_nodes(seg[b], b, c);
+            } else {
+                /* el camino da la vuelta al tour: su complemento esta
+                   dentro del segmento */
+                int a = prev(b), d = next(c);
+                if (d != b)
+                    reverse_nodes(seg[b], d, a);
+            }
+            return;
+        }
+
+        /* b al inicio de su segmento y c al final del suyo. Los nodos que
+           salen de un segmento pasan al vecino, salvo si es el segmento
+           del otro extremo del camino */
+        split_before(b, seg[c]);
+        split_after(c, seg[b]);
+        if (!ranks_valid)
+            renumber();
+        int first = seg[b], last = seg[c];
+        int k = s_rank[last] - s_rank[first] + 1;
+        if (k <= 0)
+            k += segments;
+        if (2 * k > segments) {
+            /* invertir el complemento */
+            if (s_suc[last] == first)
+                return;
+            int f = s_suc[last];
+            last = s_pred[first];
+            first = f;
+        }
+        reverse_segments(first, last);
+    };
+
+    private void reverse_nodes (int p, int b, int c)
+    /*
+     * FUNCTION: reverse_nodes: invierte un camino dentro de un segmento
+     * INPUT: segmento p, primer y ultimo nodo del camino en el orden del tour
+     * OUTPUT: ninguno
+     */
+    {
+        int lo = s_rev[p] ? c : b;
+        int hi = s_rev[p] ? b : c;
+        int m = 0;
+        for (int v = lo; ; v = suc[v]) {
+            buffer[m++] = v;
+            if (v == hi) break;
+        }
+        int lo_pred = (lo == s_first[p]) ? -1 : pred[lo];
+        int hi_suc = (hi == s_last[p]) ? -1 : suc[hi];
+        int r0 = rank[lo];
+        for (int t = 0; t < m; t++) {
+            int v = buffer[m - 1 - t];
+            rank[v] = r0 + t;
+            pred[v] = (t > 0) ? buffer[m - t] : lo_pred;
+            suc[v] = (t < m - 1) ? buffer[m - 2 - t] : hi_suc;
+        }
+        if (lo_pred >= 0) suc[lo_pred] = buffer[m - 1]; else s_first[p] = buffer[m - 1];
+        if (hi_suc >= 0) pred[hi_suc] = buffer[0]; else s_last[p] = buffer[0];
+    };
+
+    private void split_before (int v, int keep)
+    /*
+     * FUNCTION: split_before: deja a v como primer nodo de su segmento
+     * INPUT: nodo v, segmento keep que no puede recibir nodos
+     * OUTPUT: ninguno
+     */
+    {
+        int p = seg[v];
+        if (v == head(p))
+            return;
+        int before = offset(v);
+        int after = s_size[p] - before;
+        if (before <= after)
+            detach_head(p, before, keep);
+        else
+            detach_tail(p, after, keep);
+    };
+
+    private void split_after (int v, int keep)
+    /*
+     * FUNCTION: split_after: deja a v como ultimo nodo de su segmento
+     * INPUT: nodo v, segmento keep que no puede recibir nodos
+     * OUTPUT: ninguno
+     */
+    {
+        int p = seg[v];
+        if (v == tail(p))
+            return;
+        int upto = offset(v) + 1;
+        int rest = s_size[p] - upto;
+        if (upto <= rest)
+            detach_head(p, upto, keep);
+        else
+            detach_tail(p, rest, keep);
+    };
+
+    private void detach_head (int p, int m, int keep)
+    /*
+     * FUNCTION: detach_head: saca los primeros m nodos (en el orden del
+     *           tour) de un segmento
+     * INPUT: segmento p, cantidad de nodos m, segmento keep que no puede
+     *        recibirlos
+     * OUTPUT: ninguno
+     * COMMENTS: los nodos pasan al final del segmento anterior; si ese
+     *           segmento es keep o quedaria muy grande, a un segmento nuevo
+     */
+    {
+        int v = head(p);
+        for (int k = 0; k < m; k++) {
+            buffer[k] = v;
+            v = s_rev[p] ? pred[v] : suc[v];
+        }
+        if (s_rev[p]) s_last[p] = v; else s_first[p] = v;
+        s_size[p] -= m;
+
+        int t = s_pred[p];
+        if (t == keep || s_size[t] + m > 2 * group) {
+            t = new_segment();
+            int r = s_pred[p];
+            s_suc[r] = t;
+            s_pred[t] = r;
+            s_suc[t] = p;
+            s_pred[p] = t;
+        }
+        for (int k = 0; k < m; k++)
+            append(t, buffer[k]);
+    };
+
+    private void detach_tail (int p, int m, int keep)
+    /*
+     * FUNCTION: detach_tail: saca los ultimos m nodos (en el orden del
+     *           tour) de un segmento
+     * INPUT: segmento p, cantidad de nodos m, segmento keep que no puede
+     *        recibirlos
+     * OUTPUT: ninguno
+     * COMMENTS: los nodos pasan al inicio del segmento siguiente; si ese
+     *           segmento es keep o quedaria muy grande, a un segmento nuevo
+     */
+    {
+        int v = tail(p);
+        for (int k = 0; k < m; k++) {
+            buffer[k] = v;
+            v = s_rev[p] ? suc[v] : pred[v];
+        }
+        if (s_rev[p]) s_first[p] = v; else s_last[p] = v;
+        s_size[p] -= m;
+
+        int t = s_suc[p];
+        if (t == keep || s_size[t] + m > 2 * group) {
+            t = new_segment();
+            int r = s_suc[p];
+            s_suc[p] = t;
+            s_pred[t] = p;
+            s_suc[t] = r;
+            s_pred[r] = t;
+        }
+        for (int k = 0; k < m; k++)
+            prepend(t, buffer[k]);
+    };
+
+    private int new_segment ()
+    /*
+     * FUNCTION: new_segment: crea un segmento vacio (sin enlazar)
+     */
+    {
+        int t = segments++;
+        ranks_valid = false;
+        s_size[t] = 0;
+        s_rev[t] = false;
+        return t;
+    };
+
+    private void append (int t, int v)
+    /*
+     * FUNCTION: append: agrega un nodo al final (en el orden del tour) de un segmento
+     */
+    {
+        seg[v] = t;
+        if (s_size[t]++ == 0) {
+            s_first[t] = s_last[t] = v;
+            rank[v] = 0;
+        } else if (s_rev[t]) {
+            int u = s_first[t];
+            pred[u] = v;
+            suc[v] = u;
+            rank[v] = rank[u] - 1;
+            s_first[t] = v;
+        } else {
+            int u = s_last[t];
+            suc[u] = v;
+            pred[v] = u;
+            rank[v] = rank[u] + 1;
+            s_last[t] = v;
+        }
+        if (Math.abs(rank[v]) > RANK_LIMIT)
+            rank_overflow = true;
+    };
+
+    private void prepend (int t, int v)
+    /*
+     * FUNCTION: prepend: agrega un nodo al inicio (en el orden del tour) de un segmento
+     */
+    {
+        seg[v] = t;
+        if (s_size[t]++ == 0) {
+            s_first[t] = s_last[t] = v;
+            rank[v] = 0;
+        } else if (s_rev[t]) {
+            int u = s_last[t];
+            suc[u] = v;
+            pred[v] = u;
+            rank[v] = rank[u] + 1;
+            s_last[t] = v;
+        } else {
+            int u = s_first[t];
+            pred[u] = v;
+            suc[v] = u;
+            rank[v] = rank[u] - 1;
+            s_first[t] = v;
+        }
+        if (Math.abs(rank[v]) > RANK_LIMIT)
+            rank_overflow = true;
+    };
+
+    private void reverse_segments (int first, int last)
+    /*
+     * FUNCTION: reverse_segments: invierte un camino de segmentos completos
+     * INPUT: primer y ultimo segmento del camino
+     * OUTPUT: ninguno
+     * COMMENTS: el camino ocupa un bloque de s_rank consecutivos (modulo el
+     *           numero de segmentos), que se reasigna en el nuevo orden
+     */
+    {
+        int r = s_rank[first];
+        int before = s_pred[first];
+        int after = s_suc[last];
+        int k = 0;
+        for (int p = first; ; p = s_suc[p]) {
+            buffer[k++] = p;
+            s_rev[p] = !s_rev[p];
+            if (p == last) break;
+        }
+        int prev = before;
+        for (int t = k - 1; t >= 0; t--) {
+            int p = buffer[t];
+            s_suc[prev] = p;
+            s_pred[p] = prev;
+            prev = p;
+            s_rank[p] = r;
+            if (r == 0)
+                s_head = p;
+            if (++r == segments)
+                r = 0;
+        }
+        s_suc[prev] = after;
+        s_pred[after] = prev;
+    };
+
+    private void renumber ()
+    /*
+     * FUNCTION: renumber: recalcula el orden de los segmentos en el tour
+     */
+    {
+        int r = 0;
+        int p = s_head;
+        do {
+            s_rank[p] = r++;
+            p = s_suc[p];
+        } while (p != s_head);
+        ranks_valid = true;
+    };
+}
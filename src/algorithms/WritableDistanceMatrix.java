@@ -0,0 +1,29 @@
+package algorithms;
+/* WritableDistanceMatrix class
+ * Clase abstracta de las matrices de distancias guardadas en memoria,
+ * que se llenan al leer la instancia (ver DistanceTask). Las distancias
+ * implicitas y las mapeadas desde el cache solo se leen
+ *
+ * @autor  Leslie Perez Caceres
+ * @version 1.0
+ *
+ */
+
+public abstract class WritableDistanceMatrix extends DistanceMatrix {
+
+    protected WritableDistanceMatrix (int _n)
+    /*
+     * FUNCTION: Constructor clase WritableDistanceMatrix
+     * INPUT: numero de nodos: _n
+     */
+    {
+        super(_n);
+    };
+
+    public abstract void set (int i, int j, int value);
+    /*
+     * FUNCTION: set: guarda la distancia entre dos nodos
+     * INPUT: indices i, j de los nodos, distancia: value
+     * OUTPUT: ninguno
+     */
+}